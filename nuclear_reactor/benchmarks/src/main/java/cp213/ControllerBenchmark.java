@@ -0,0 +1,166 @@
+package cp213;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ReactorController.react() in each controller mode. Each call reacts
+ * to the next of a fixed set of readings, taken either across the whole
+ * temperature and rod domain or from the points where the worst-case cooling
+ * check simulates the most ticks.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ControllerBenchmark {
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Number of readings; a power of two.
+	private static final int READINGS = 1 << 12;
+	private static final double TEMP_STEP = 0.25;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Benchmark parameters.
+	 */
+	@Param({ "ITERATIVE", "THRESHOLD" })
+	public ReactorController.Mode mode;
+
+	@Param({ "domain", "worstCase" })
+	public String readings;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ControllerBenchmark class.
+	 */
+	private ReactorController controller;
+	private Reading[] targets;
+	private int next = 0;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Fixed readings that count the commands the controller sends.
+	 */
+	private static class Reading implements Controllable {
+		private final double temperature;
+		private final int rodsHeight;
+		private int commands = 0;
+
+		private Reading(final double temperature, final int rodsHeight) {
+			this.temperature = temperature;
+			this.rodsHeight = rodsHeight;
+		}
+
+		@Override
+		public void dropRods() {
+			this.commands++;
+		}
+
+		@Override
+		public int getRodsHeight() {
+			return this.rodsHeight;
+		}
+
+		@Override
+		public Reactor.Status getStatus() {
+			return Reactor.Status.OPERATING;
+		}
+
+		@Override
+		public double getTemperature() {
+			return this.temperature;
+		}
+
+		@Override
+		public void lowerRods() {
+			this.commands++;
+		}
+
+		@Override
+		public void raiseRods() {
+			this.commands++;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	@Setup
+	public void setUp() {
+		this.controller = new ReactorController(this.mode);
+
+		final List<Reading> candidates = new ArrayList<Reading>();
+		int mostTicks = 0;
+
+		for (int rodsHeight = 0; rodsHeight <= Reactor.ROD_LENGTH; rodsHeight++) {
+			for (double temperature = Reactor.MIN_TEMP; temperature <= Reactor.MAX_TEMP; temperature += TEMP_STEP) {
+				if ("domain".equals(this.readings)) {
+					candidates.add(new Reading(temperature, rodsHeight));
+					continue;
+				}
+
+				// Keep only the readings with the longest worst-case check.
+				final int ticks = worstCaseTicks(temperature, rodsHeight);
+
+				if (ticks > mostTicks) {
+					candidates.clear();
+					mostTicks = ticks;
+				}
+				if (ticks == mostTicks) {
+					candidates.add(new Reading(temperature, rodsHeight));
+				}
+			}
+		}
+
+		// Spread the readings evenly over the candidates.
+		this.targets = new Reading[READINGS];
+		for (int i = 0; i < READINGS; i++) {
+			this.targets[i] = candidates.get((int) ((long) i * candidates.size() / READINGS));
+		}
+	}
+
+	@Benchmark
+	public Reading react() {
+		final Reading target = this.targets[this.next++ & (READINGS - 1)];
+
+		this.controller.react(target);
+		return target;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Counts the ticks the ITERATIVE controller simulates when checking whether
+	 * the rods can be left at rodsHeight.
+	 */
+	private static int worstCaseTicks(final double temperature, int rodsHeight) {
+		double newTemperature = Reactor.TEMP_FACTOR * temperature - rodsHeight + Reactor.RAND_HIGH;
+		int ticks = 0;
+
+		while (newTemperature > temperature && newTemperature < Reactor.MAX_TEMP && rodsHeight <= Reactor.ROD_LENGTH) {
+			newTemperature = Reactor.TEMP_FACTOR * newTemperature - ++rodsHeight + Reactor.RAND_HIGH;
+			ticks++;
+		}
+
+		return ticks;
+	}
+
+}
@@ -0,0 +1,79 @@
+package cp213;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the formatting done by the panels for each frame: the four
+ * String.format calls of the summary on their own, and a whole
+ * SummaryPanel.refresh() including the text field updates. The panel is never
+ * shown, so the benchmark runs headless.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FormatBenchmark {
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Number of snapshots; a power of two.
+	private static final int SNAPSHOTS = 1 << 10;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of FormatBenchmark class.
+	 */
+	private final ReactorSnapshot[] snapshots = new ReactorSnapshot[SNAPSHOTS];
+	private SummaryPanel summary;
+	private int next = 0;
+
+	// ---------------------------------------------------------------
+	@Setup
+	public void setUp() {
+		final Reactor reactor = new Reactor(447, 50, 0, 1);
+		new ReactorController(reactor, false);
+
+		// Readings of a controlled run, so the values look like real frames.
+		for (int i = 0; i < SNAPSHOTS; i++) {
+			reactor.tick();
+			this.snapshots[i] = reactor.getSnapshot();
+		}
+
+		this.summary = new SummaryPanel(reactor);
+	}
+
+	@Benchmark
+	public void format(final Blackhole blackhole) {
+		final ReactorSnapshot snapshot = this.snapshots[this.next++ & (SNAPSHOTS - 1)];
+
+		blackhole.consume(String.format("%.5f", snapshot.getTemperature()) + "°C");
+		blackhole.consume(String.format("%.5f", snapshot.getPower()) + "MW");
+		blackhole.consume(String.format("%.5f", snapshot.getAverageTemperature()) + "°C");
+		blackhole.consume(String.format("%.5f", snapshot.getAveragePower()) + "MW");
+	}
+
+	@Benchmark
+	public SummaryPanel summaryRefresh() {
+		this.summary.refresh(this.snapshots[this.next++ & (SNAPSHOTS - 1)]);
+		return this.summary;
+	}
+
+}
@@ -0,0 +1,122 @@
+package cp213;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures Reactor.tick() and the cost of notifying its listeners. Listeners
+ * are attached either as TickListeners or as PropertyChangeListeners, and only
+ * hand what they receive to a Blackhole.
+ *
+ * The reactor starts at the temperature where a tick with the fixed noise
+ * leaves it unchanged, so it stays operating and every tick runs the full
+ * update, averages included.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ReactorTickBenchmark {
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final int RODS_HEIGHT = 50;
+	// T = TEMP_FACTOR * T - RODS_HEIGHT + RAND_HIGH.
+	private static final double STEADY_TEMP = (RODS_HEIGHT - Reactor.RAND_HIGH) / (Reactor.TEMP_FACTOR - 1);
+
+	// ---------------------------------------------------------------
+	/**
+	 * Benchmark parameters.
+	 */
+	@Param({ "0", "1", "8", "64" })
+	public int listeners;
+
+	@Param({ "tick", "property" })
+	public String style;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorTickBenchmark class.
+	 */
+	private Reactor reactor;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Passes tick readings to a Blackhole.
+	 */
+	private static class SinkTickListener implements TickListener {
+		private final Blackhole blackhole;
+
+		private SinkTickListener(final Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void onTick(final int tick, final double temperature, final double power, final int rodsHeight,
+				final Reactor.Status status) {
+			this.blackhole.consume(tick);
+			this.blackhole.consume(temperature);
+		}
+	}
+
+	/**
+	 * Reads the model back on each property change, like the views used to.
+	 */
+	private static class SinkPropertyListener implements PropertyChangeListener {
+		private final Reactor model;
+		private final Blackhole blackhole;
+
+		private SinkPropertyListener(final Reactor model, final Blackhole blackhole) {
+			this.model = model;
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void propertyChange(final PropertyChangeEvent evt) {
+			this.blackhole.consume(this.model.getTicks());
+			this.blackhole.consume(this.model.getTemperature());
+		}
+	}
+
+	// ---------------------------------------------------------------
+	@Setup(Level.Iteration)
+	public void setUp(final Blackhole blackhole) {
+		this.reactor = new Reactor(STEADY_TEMP, RODS_HEIGHT, 0, 1);
+
+		for (int i = 0; i < this.listeners; i++) {
+			if ("tick".equals(this.style)) {
+				this.reactor.addTickListener(new SinkTickListener(blackhole));
+			} else {
+				this.reactor.addPropertyChangeListener(new SinkPropertyListener(this.reactor, blackhole));
+			}
+		}
+	}
+
+	@Benchmark
+	public double tick() {
+		this.reactor.tick();
+		return this.reactor.getTemperature();
+	}
+
+}
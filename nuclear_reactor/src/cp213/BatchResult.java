@@ -0,0 +1,177 @@
+package cp213;
+
+/**
+ * The aggregate outcome of a batch of headless reactor runs: how many runs
+ * ended in each status, a histogram of the ticks each run took to terminate,
+ * and the average power produced across all runs.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class BatchResult {
+
+	// ---------------------------------------------------------------
+	// Number of buckets in the ticks-to-termination histogram.
+	public static final int HISTOGRAM_BUCKETS = 64;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of BatchResult class.
+	 */
+	private final int bucketWidth;
+	private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+	private final long[] statusCounts = new long[Reactor.Status.values().length];
+	private long runs = 0;
+	private long totalTicks = 0;
+	private double totalAveragePower = 0;
+
+	/**
+	 * BatchResult constructor.
+	 *
+	 * @param maxTicks
+	 *            The largest number of ticks a single run may take. Determines
+	 *            the width of the histogram buckets.
+	 */
+	BatchResult(final int maxTicks) {
+		this.bucketWidth = Math.max(1, (maxTicks + HISTOGRAM_BUCKETS) / HISTOGRAM_BUCKETS);
+	}
+
+	/**
+	 * Adds the outcome of one finished reactor run.
+	 *
+	 * @param status
+	 *            The final status of the reactor.
+	 * @param ticks
+	 *            The number of ticks the reactor ran for.
+	 * @param averagePower
+	 *            The average power of the reactor over the run.
+	 */
+	void add(final Reactor.Status status, final int ticks, final double averagePower) {
+		this.runs++;
+		this.totalTicks += ticks;
+		this.totalAveragePower += averagePower;
+		this.statusCounts[status.ordinal()]++;
+		this.histogram[Math.min(ticks / this.bucketWidth, HISTOGRAM_BUCKETS - 1)]++;
+	}
+
+	/**
+	 * Adds the counts of another result built with the same maximum ticks to
+	 * this one.
+	 *
+	 * @param other
+	 *            The result to merge into this one.
+	 */
+	void merge(final BatchResult other) {
+		this.runs += other.runs;
+		this.totalTicks += other.totalTicks;
+		this.totalAveragePower += other.totalAveragePower;
+
+		for (int i = 0; i < this.statusCounts.length; i++) {
+			this.statusCounts[i] += other.statusCounts[i];
+		}
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+			this.histogram[i] += other.histogram[i];
+		}
+	}
+
+	/**
+	 * Returns the mean of the runs' average power.
+	 *
+	 * @return average power.
+	 */
+	public double getAveragePower() {
+		return this.runs == 0 ? 0 : this.totalAveragePower / this.runs;
+	}
+
+	/**
+	 * Returns the mean number of ticks the runs took to terminate.
+	 *
+	 * @return average ticks.
+	 */
+	public double getAverageTicks() {
+		return this.runs == 0 ? 0 : (double) this.totalTicks / this.runs;
+	}
+
+	/**
+	 * Returns the number of ticks covered by each histogram bucket. Bucket i
+	 * counts runs that took [i * width, (i + 1) * width) ticks; the last bucket
+	 * also holds every longer run.
+	 *
+	 * @return bucket width.
+	 */
+	public int getBucketWidth() {
+		return this.bucketWidth;
+	}
+
+	/**
+	 * Returns the number of runs that ended with the given status.
+	 *
+	 * @param status
+	 *            The status to count.
+	 * @return count.
+	 */
+	public long getCount(final Reactor.Status status) {
+		return this.statusCounts[status.ordinal()];
+	}
+
+	/**
+	 * Returns the fraction of runs that ended with the given status.
+	 *
+	 * @param status
+	 *            The status to count.
+	 * @return fraction between 0 and 1.
+	 */
+	public double getFraction(final Reactor.Status status) {
+		return this.runs == 0 ? 0 : (double) this.getCount(status) / this.runs;
+	}
+
+	/**
+	 * Returns the number of meltdowns per shutdown.
+	 *
+	 * @return meltdowns / shutdowns, 0 if no run melted down, or infinity if some
+	 *         run melted down and none shut down.
+	 */
+	public double getMeltdownShutdownRatio() {
+		final long meltdowns = this.getCount(Reactor.Status.MELTDOWN);
+		final long shutdowns = this.getCount(Reactor.Status.SHUTDOWN);
+
+		if (shutdowns == 0) {
+			return meltdowns == 0 ? 0 : Double.POSITIVE_INFINITY;
+		}
+		return (double) meltdowns / shutdowns;
+	}
+
+	/**
+	 * Returns the number of runs in the batch.
+	 *
+	 * @return runs.
+	 */
+	public long getRuns() {
+		return this.runs;
+	}
+
+	/**
+	 * Returns a copy of the ticks-to-termination histogram.
+	 *
+	 * @return histogram counts.
+	 */
+	public long[] getTickHistogram() {
+		return this.histogram.clone();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(String.format("Runs: %d%n", this.runs));
+		for (Reactor.Status status : Reactor.Status.values()) {
+			sb.append(String.format("%s: %d (%.3f%%)%n", status, this.getCount(status), 100 * this.getFraction(status)));
+		}
+		sb.append(String.format("Average ticks: %.3f%n", this.getAverageTicks()));
+		sb.append(String.format("Average power: %.5fMW%n", this.getAveragePower()));
+
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,236 @@
+package cp213;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs many reactors to completion without a GUI. Each run ticks its reactor
+ * directly, with no sleeping between ticks, and the runs are split across a
+ * fork-join pool. The outcomes are gathered into a BatchResult. Every reactor
+ * is seeded from a generator split off the batch seed, so a batch run with the
+ * same seed and size gives the same result regardless of thread scheduling.
+ * While the noise is fixed, a run that reaches a state an earlier run passed
+ * through is finished from a TrajectoryCache instead of being ticked.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class BatchSimulation {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Splits a range of runs in half until it is small enough to run on one
+	 * thread, then merges the results of both halves. Each half gets its own
+	 * generator for reactor seeds.
+	 */
+	@SuppressWarnings("serial")
+	private class BatchTask extends RecursiveTask<BatchResult> {
+
+		private final long from;
+		private final long to;
+		private final SplittableRandom seeds;
+
+		BatchTask(final long from, final long to, final SplittableRandom seeds) {
+			this.from = from;
+			this.to = to;
+			this.seeds = seeds;
+		}
+
+		@Override
+		protected BatchResult compute() {
+
+			if (this.to - this.from <= THRESHOLD) {
+				BatchResult result = new BatchResult(BatchSimulation.this.maxTicks);
+
+				for (long i = this.from; i < this.to; i++) {
+					BatchSimulation.this.runOne(result, this.seeds.nextLong());
+				}
+				return result;
+			}
+
+			long middle = (this.from + this.to) >>> 1;
+			BatchTask left = new BatchTask(this.from, middle, this.seeds.split());
+			BatchTask right = new BatchTask(middle, this.to, this.seeds);
+
+			left.fork();
+			BatchResult result = right.compute();
+			result.merge(left.join());
+
+			return result;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Number of runs below which a task is no longer split.
+	private static final int THRESHOLD = 256;
+	// Default cap on the ticks of a single run.
+	public static final int DEFAULT_MAX_TICKS = 100000;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of BatchSimulation class.
+	 */
+	private final double initialTemperature;
+	private final int initialRodsHeight;
+	// The controller mode of every reactor, or null for none.
+	private final ReactorController.Mode mode;
+	private final int maxTicks;
+	private final long seed;
+	private final ReactorConfig config;
+	// Outcomes of earlier runs, reused when the noise is fixed.
+	private final TrajectoryCache cache;
+
+	/**
+	 * BatchSimulation constructor. The batch is given a random seed.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param automatic
+	 *            Whether or not each reactor is driven by a ReactorController.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit().
+	 */
+	public BatchSimulation(final double initialTemperature, final int initialRodsHeight, final boolean automatic,
+			final int maxTicks) {
+		this(initialTemperature, initialRodsHeight, automatic, maxTicks, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * BatchSimulation constructor.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param automatic
+	 *            Whether or not each reactor is driven by a ReactorController.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit(). Controlled reactors can operate forever.
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 */
+	public BatchSimulation(final double initialTemperature, final int initialRodsHeight, final boolean automatic,
+			final int maxTicks, final long seed) {
+		this(initialTemperature, initialRodsHeight, automatic ? ReactorController.Mode.THRESHOLD : null, maxTicks,
+				seed);
+	}
+
+	/**
+	 * BatchSimulation constructor for comparing controller modes.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param mode
+	 *            The mode of the ReactorController driving each reactor, or null
+	 *            to leave the reactors uncontrolled.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit(). Controlled reactors can operate forever.
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 */
+	public BatchSimulation(final double initialTemperature, final int initialRodsHeight,
+			final ReactorController.Mode mode, final int maxTicks, final long seed) {
+		this(initialTemperature, initialRodsHeight, mode, maxTicks, seed, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * BatchSimulation constructor for reactors with their own physics parameters.
+	 * Batches with different configs can run at the same time.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param mode
+	 *            The mode of the ReactorController driving each reactor, or null
+	 *            to leave the reactors uncontrolled.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit(). Controlled reactors can operate forever.
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 * @param config
+	 *            The physics parameters of every reactor.
+	 */
+	public BatchSimulation(final double initialTemperature, final int initialRodsHeight,
+			final ReactorController.Mode mode, final int maxTicks, final long seed, final ReactorConfig config) {
+		this.initialTemperature = initialTemperature;
+		this.initialRodsHeight = initialRodsHeight;
+		this.mode = mode;
+		this.maxTicks = maxTicks;
+		this.seed = seed;
+		this.config = config;
+		this.cache = new TrajectoryCache(TrajectoryCache.DEFAULT_CAPACITY, maxTicks, config);
+	}
+
+	/**
+	 * Returns the cache of run outcomes shared by the batch's runs.
+	 *
+	 * @return cache.
+	 */
+	public TrajectoryCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Runs the batch on the common fork-join pool.
+	 *
+	 * @param runs
+	 *            The number of reactors to run.
+	 * @return the aggregate outcome.
+	 */
+	public BatchResult run(final long runs) {
+		return this.run(runs, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the batch on the given fork-join pool.
+	 *
+	 * @param runs
+	 *            The number of reactors to run.
+	 * @param pool
+	 *            The pool to run the reactors on.
+	 * @return the aggregate outcome.
+	 */
+	public BatchResult run(final long runs, final ForkJoinPool pool) {
+		return pool.invoke(new BatchTask(0, runs, new SplittableRandom(this.seed)));
+	}
+
+	/**
+	 * Runs a single reactor until it stops operating or reaches maxTicks and adds
+	 * its outcome to result.
+	 */
+	private void runOne(final BatchResult result, final long seed) {
+		Reactor reactor = new Reactor(this.initialTemperature, this.initialRodsHeight, 0, seed, this.config);
+
+		if (this.mode != null) {
+			new ReactorController(reactor, false, this.mode);
+		}
+		TrajectoryCache.Run run = this.cache.start();
+
+		while (reactor.getStatus() == Reactor.Status.OPERATING) {
+			if (run.reached(reactor)) {
+				result.add(run.getStatus(), run.getTicks(), run.getAveragePower());
+				return;
+			}
+			if (reactor.getTicks() >= this.maxTicks) {
+				reactor.quit();
+			}
+			reactor.tick();
+		}
+		run.end(reactor);
+
+		result.add(reactor.getStatus(), reactor.getTicks(), reactor.getAveragePower());
+	}
+
+}
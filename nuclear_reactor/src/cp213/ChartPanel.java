@@ -0,0 +1,156 @@
+package cp213;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JPanel;
+
+//---------------------------------------------------------------
+/**
+ * Chart the reactor's temperature and power over the latest ticks, one tick per
+ * pixel column, newest on the right. The chart is kept in an off-screen image:
+ * each refresh scrolls the image left and draws only the samples recorded since
+ * the previous refresh, so the cost of a frame does not grow with the length of
+ * the run. When more ticks than the chart is wide have passed, only the newest
+ * are drawn.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ */
+@SuppressWarnings("serial")
+public class ChartPanel extends JPanel {
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final Color BACKGROUND = Color.WHITE;
+	private static final Color TEMPERATURE_COLOR = Color.RED;
+	private static final Color POWER_COLOR = Color.BLUE;
+
+	// The ticks to chart.
+	private TickHistory history;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ChartPanel class.
+	 */
+	private BufferedImage image = null;
+	// Number of the next sample to draw.
+	private long nextSample = 0;
+
+	/**
+	 * ChartPanel constructor.
+	 *
+	 * @param history
+	 *            The ticks to chart.
+	 */
+	ChartPanel(final TickHistory history) {
+		this.history = history;
+		this.setPreferredSize(new Dimension(600, 150));
+		this.setBackground(BACKGROUND);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Draws the samples recorded since the last refresh into the off-screen image
+	 * and repaints. Must be called on the event dispatch thread.
+	 */
+	void refresh() {
+		final int width = this.getWidth();
+		final int height = this.getHeight();
+
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+
+		// Start over if the panel has been resized.
+		if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+			this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			this.clear(0, width);
+			this.nextSample = 0;
+		}
+
+		final long count = this.history.getCount();
+		final long first = Math.max(Math.max(this.nextSample, count - width),
+				count - this.history.getCapacity());
+		final int columns = (int) (count - first);
+
+		if (columns <= 0) {
+			return;
+		}
+
+		// Scroll the old samples left and draw the new ones in the freed columns.
+		final Graphics2D g = this.image.createGraphics();
+		if (columns < width) {
+			g.copyArea(columns, 0, width - columns, height, -columns, 0);
+		}
+		this.clear(width - columns, columns);
+
+		for (long sample = first; sample < count; sample++) {
+			final int x = width - (int) (count - sample);
+
+			this.plot(g, x, sample - 1, sample, TEMPERATURE_COLOR, true);
+			this.plot(g, x, sample - 1, sample, POWER_COLOR, false);
+		}
+		g.dispose();
+
+		this.nextSample = count;
+		this.repaint();
+	}
+
+	@Override
+	protected void paintComponent(final Graphics g) {
+		super.paintComponent(g);
+
+		if (this.image != null) {
+			g.drawImage(this.image, 0, 0, null);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Clears columns of the off-screen image.
+	 */
+	private void clear(final int x, final int columns) {
+		final Graphics2D g = this.image.createGraphics();
+
+		g.setColor(BACKGROUND);
+		g.fillRect(x, 0, columns, this.image.getHeight());
+		g.dispose();
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Draws the line from the previous sample to a sample at column x, or a
+	 * point if the previous sample is no longer held.
+	 */
+	private void plot(final Graphics2D g, final int x, final long previous, final long sample, final Color color,
+			final boolean temperature) {
+		final int y = this.toY(sample, temperature);
+		final int previousY = this.toY(previous, temperature);
+
+		// Skip samples replaced while they were being read.
+		if (!this.history.isAvailable(sample)) {
+			return;
+		}
+
+		g.setColor(color);
+		g.drawLine(x - 1, this.history.isAvailable(previous) ? previousY : y, x, y);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Scales the temperature or power of a sample to a row of the image.
+	 */
+	private int toY(final long sample, final boolean temperature) {
+		final double fraction = temperature
+				? (this.history.getTemperature(sample) - Reactor.MIN_TEMP) / (Reactor.MAX_TEMP - Reactor.MIN_TEMP)
+				: this.history.getPower(sample) / Reactor.MAX_POWER;
+		final int height = this.image.getHeight();
+
+		return height - 1 - (int) Math.round(fraction * (height - 1));
+	}
+
+}
@@ -0,0 +1,156 @@
+package cp213;
+
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+//---------------------------------------------------------------
+/**
+ * Control the simulation clock with buttons to pause, resume, and step the
+ * simulation, a spinner for the speed multiplier, and a checkbox to run
+ * unthrottled.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ */
+@SuppressWarnings("serial")
+public class ClockPanel extends JPanel {
+
+	// ---------------------------------------------------------------
+	/**
+	 * An inner class that uses an ActionListener to access the buttons and the
+	 * checkbox. It sets the clock values when they are used.
+	 */
+	private class ButtonListener implements ActionListener {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+
+			if (e.getSource() == ClockPanel.this.chkUnthrottled) {
+				ClockPanel.this.clock.setUnthrottled(ClockPanel.this.chkUnthrottled.isSelected());
+				ClockPanel.this.spnSpeed.setEnabled(!ClockPanel.this.chkUnthrottled.isSelected());
+				return;
+			}
+
+			// Detemines which button was pressed.
+			String action = ((JButton) e.getSource()).getText();
+
+			switch (action) {
+
+			case "Pause":
+				ClockPanel.this.clock.setPaused(true);
+				ClockPanel.this.btnPause.setText("Resume");
+				ClockPanel.this.btnStep.setEnabled(true);
+				break;
+
+			case "Resume":
+				ClockPanel.this.clock.setPaused(false);
+				ClockPanel.this.btnPause.setText("Pause");
+				ClockPanel.this.btnStep.setEnabled(false);
+				break;
+
+			case "Step":
+				ClockPanel.this.clock.step();
+				break;
+
+			}
+
+		}
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * An inner class that listens for changes to the speed spinner.
+	 */
+	private class SpeedListener implements ChangeListener {
+
+		@Override
+		public void stateChanged(ChangeEvent e) {
+			ClockPanel.this.clock.setSpeed((double) ClockPanel.this.spnSpeed.getValue());
+		}
+
+	}
+
+	// The clock to control.
+	private SimulationClock clock;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ClockPanel class.
+	 */
+	private JButton btnPause = new JButton("Pause");
+	private JButton btnStep = new JButton("Step");
+	private JLabel lblSpeed = new JLabel("Speed:");
+	private JSpinner spnSpeed = new JSpinner(
+			new SpinnerNumberModel(1, SimulationClock.MIN_SPEED, SimulationClock.MAX_SPEED, 0.1));
+	private JCheckBox chkUnthrottled = new JCheckBox("Unthrottled");
+
+	/**
+	 * ClockPanel constructor.
+	 *
+	 * @param clock
+	 *            The clock to control.
+	 */
+	ClockPanel(final SimulationClock clock) {
+		this.clock = clock;
+
+		this.layoutView();
+		this.registerListeners();
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Disables every control if the reactor is no longer operating. Must be called
+	 * on the event dispatch thread.
+	 *
+	 * @param snapshot
+	 *            The readings of the model to show.
+	 */
+	void refresh(final ReactorSnapshot snapshot) {
+		if (snapshot.getStatus() != Reactor.Status.OPERATING) {
+			this.btnPause.setEnabled(false);
+			this.btnStep.setEnabled(false);
+			this.spnSpeed.setEnabled(false);
+			this.chkUnthrottled.setEnabled(false);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Uses the FlowLayout to place the buttons, spinner, and checkbox.
+	 */
+	private void layoutView() {
+
+		this.setLayout(new FlowLayout());
+
+		btnStep.setEnabled(false);
+
+		this.add(btnPause);
+		this.add(btnStep);
+		this.add(lblSpeed);
+		this.add(spnSpeed);
+		this.add(chkUnthrottled);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Assigns listeners to the view widgets.
+	 */
+	private void registerListeners() {
+		this.btnPause.addActionListener(new ButtonListener());
+		this.btnStep.addActionListener(new ButtonListener());
+		this.chkUnthrottled.addActionListener(new ButtonListener());
+		this.spnSpeed.addChangeListener(new SpeedListener());
+	}
+
+}
@@ -5,8 +5,6 @@ import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 
 import javax.swing.JButton;
 import javax.swing.JPanel;
@@ -76,26 +74,6 @@ public class ControlPanel extends JPanel {
 
 	}
 
-	// -------------------------------------------------------------------------------
-	/**
-	 * An inner class the listens for the model to stop operating and disables all
-	 * buttons when this occurs.
-	 */
-	private class OperatingListener implements PropertyChangeListener {
-
-		@Override
-		public void propertyChange(final PropertyChangeEvent arg0) {
-			// Disable every button if the reactor is no longer operating.
-			if (ControlPanel.this.model.getStatus() != Reactor.Status.OPERATING) {
-				ControlPanel.this.btnEnd.setEnabled(false);
-				ControlPanel.this.btnDrop.setEnabled(false);
-				ControlPanel.this.btnRaise.setEnabled(false);
-				ControlPanel.this.btnLower.setEnabled(false);
-				ControlPanel.this.btnSwitchMode.setEnabled(false);
-			}
-		}
-	}
-
 	// The reactor to control.
 	private Reactor model;
 
@@ -176,7 +154,25 @@ public class ControlPanel extends JPanel {
 
 	// ---------------------------------------------------------------
 	/**
-	 * Assigns listeners to the view widgets and the model.
+	 * Disables every button if the reactor is no longer operating. Must be called
+	 * on the event dispatch thread.
+	 *
+	 * @param snapshot
+	 *            The readings of the model to show.
+	 */
+	void refresh(final ReactorSnapshot snapshot) {
+		if (snapshot.getStatus() != Reactor.Status.OPERATING) {
+			this.btnEnd.setEnabled(false);
+			this.btnDrop.setEnabled(false);
+			this.btnRaise.setEnabled(false);
+			this.btnLower.setEnabled(false);
+			this.btnSwitchMode.setEnabled(false);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Assigns listeners to the view widgets.
 	 */
 	private void registerListeners() {
 
@@ -186,9 +182,6 @@ public class ControlPanel extends JPanel {
 		this.btnRaise.addActionListener(new ButtonListener());
 		this.btnLower.addActionListener(new ButtonListener());
 		this.btnSwitchMode.addActionListener(new ButtonListener());
-
-		// Add model listener.
-		this.model.addPropertyChangeListener(new OperatingListener());
 	}
 
 }
@@ -0,0 +1,185 @@
+package cp213;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A table of the rod action to take for every reactor state, as solved by a
+ * PolicySolver. States are the rod heights, whether the rods have been dropped,
+ * and the temperature in bins of getBinWidth() degrees from MIN_TEMP. Each state
+ * takes one byte, so looking up an action is a single array read.
+ *
+ * States from which the solver could not guarantee avoiding a meltdown hold
+ * FALLBACK; the controller then decides as it would without a policy.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ControlPolicy {
+
+	// ---------------------------------------------------------------
+	/**
+	 * The action to take in a state.
+	 */
+	public enum Action {
+		HOLD, RAISE, LOWER, DROP, FALLBACK
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Number of rows in the table: one per rod height, then one for dropped rods.
+	public static final int ROWS = Reactor.ROD_LENGTH + 2;
+	// Row of the states with dropped rods.
+	public static final int DROPPED_ROW = Reactor.ROD_LENGTH + 1;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final int MAGIC = 0x52504f4c;
+	private static final Action[] ACTIONS = Action.values();
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ControlPolicy class.
+	 */
+	private final double binWidth;
+	private final int bins;
+	// Action ordinals, row by row.
+	private final byte[] actions;
+
+	/**
+	 * ControlPolicy constructor.
+	 *
+	 * @param binWidth
+	 *            The width of the temperature bins.
+	 * @param bins
+	 *            The number of temperature bins per row.
+	 * @param actions
+	 *            The action ordinals of the ROWS * bins states, row by row.
+	 */
+	ControlPolicy(final double binWidth, final int bins, final byte[] actions) {
+		this.binWidth = binWidth;
+		this.bins = bins;
+		this.actions = actions;
+	}
+
+	/**
+	 * Returns the action to take in a state.
+	 *
+	 * @param temperature
+	 *            The reactor's temperature.
+	 * @param rodsHeight
+	 *            The reactor's rod heights.
+	 * @param rodsDropped
+	 *            Whether or not the reactor's rods have been dropped.
+	 * @return the action, FALLBACK if the state is outside the table or has no
+	 *         safe action.
+	 */
+	public Action getAction(final double temperature, final int rodsHeight, final boolean rodsDropped) {
+
+		if (!(temperature >= Reactor.MIN_TEMP && temperature < Reactor.MAX_TEMP) || rodsHeight < 0
+				|| rodsHeight > Reactor.ROD_LENGTH) {
+			return Action.FALLBACK;
+		}
+
+		final int bin = Math.min((int) ((temperature - Reactor.MIN_TEMP) / this.binWidth), this.bins - 1);
+		final int row = rodsDropped ? DROPPED_ROW : rodsHeight;
+
+		return ACTIONS[this.actions[row * this.bins + bin]];
+	}
+
+	/**
+	 * Returns the number of temperature bins per row.
+	 *
+	 * @return bins.
+	 */
+	public int getBins() {
+		return this.bins;
+	}
+
+	/**
+	 * Returns the width of the temperature bins.
+	 *
+	 * @return binWidth.
+	 */
+	public double getBinWidth() {
+		return this.binWidth;
+	}
+
+	/**
+	 * Returns the fraction of states with a safe action.
+	 *
+	 * @return the fraction, from 0 to 1.
+	 */
+	public double getSafeFraction() {
+		int safe = 0;
+
+		for (byte action : this.actions) {
+			if (action != Action.FALLBACK.ordinal()) {
+				safe++;
+			}
+		}
+
+		return (double) safe / this.actions.length;
+	}
+
+	/**
+	 * Reads a policy written by write().
+	 *
+	 * @param file
+	 *            The file to read.
+	 * @return the policy.
+	 * @throws IOException
+	 *             if the file cannot be read or does not hold a policy.
+	 */
+	public static ControlPolicy read(final File file) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if (in.readInt() != MAGIC || in.readInt() != ROWS) {
+				throw new IOException(file + " is not a control policy for this reactor.");
+			}
+
+			final double binWidth = in.readDouble();
+			final int bins = in.readInt();
+			final byte[] actions = new byte[ROWS * bins];
+			in.readFully(actions);
+
+			for (byte action : actions) {
+				if (action < 0 || action >= ACTIONS.length) {
+					throw new IOException(file + " holds an unknown action.");
+				}
+			}
+
+			return new ControlPolicy(binWidth, bins, actions);
+		}
+
+	}
+
+	/**
+	 * Writes the policy to a file.
+	 *
+	 * @param file
+	 *            The file to write.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public void write(final File file) throws IOException {
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(ROWS);
+			out.writeDouble(this.binWidth);
+			out.writeInt(this.bins);
+			out.write(this.actions);
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+package cp213;
+
+/**
+ * The readings and rod commands a ReactorController needs to drive a reactor.
+ * Implemented by Reactor and by the members of a ReactorFleet.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public interface Controllable {
+
+	/**
+	 * Drops the rods entirely into the reactor core.
+	 */
+	void dropRods();
+
+	/**
+	 * Returns the reactor's current rod heights.
+	 *
+	 * @return rodsHeight.
+	 */
+	int getRodsHeight();
+
+	/**
+	 * Returns the reactor's current status.
+	 *
+	 * @return status.
+	 */
+	Reactor.Status getStatus();
+
+	/**
+	 * Returns the reactor's current temperature.
+	 *
+	 * @return temperature.
+	 */
+	double getTemperature();
+
+	/**
+	 * Lower the rod heights by one step.
+	 */
+	void lowerRods();
+
+	/**
+	 * Raise the rod heights by one step.
+	 */
+	void raiseRods();
+
+}
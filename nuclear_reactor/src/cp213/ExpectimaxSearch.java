@@ -0,0 +1,310 @@
+package cp213;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the rod action of an EXPECTIMAX controller by searching the next
+ * ticks. Each tick the controller picks an action, then the reactor heats by
+ * one of the noise values from randLow to randHigh, each equally likely. The
+ * value of a state is the expected power of the ticks searched, and the action
+ * with the highest value is taken.
+ *
+ * Only actions the controller's own checks allow are searched: raising if the
+ * reactor can still be cooled with the rods one step higher, holding if it can
+ * with the rods where they are, and lowering always. The rods are dropped
+ * whenever a worst-case tick could melt the reactor down. The search so never
+ * takes a risk the rule would not, and as power only grows with temperature,
+ * raising whenever it may, as the THRESHOLD rule does, is what the search
+ * finds too: no config tried gives it more power than the rule. It is kept to
+ * check that for other configs, and as a controller whose decisions are timed
+ * against a budget.
+ *
+ * The search deepens one tick at a time and keeps the choice of the deepest
+ * search it finished before its deadline. Searching one tick always finishes.
+ * A deeper search is only started if the last one, times the branching factor
+ * of a tick, still fits before the deadline, which is set a safety margin
+ * short of the budget; a search that still runs out of time is abandoned at
+ * the next state it evaluates.
+ * Values are kept in a transposition table keyed by temperature, rod heights
+ * and depth, so a state reached along several paths, or by the reactor on a
+ * later tick, is evaluated once. Temperatures are computed exactly as the
+ * reactor computes them, so the state the reactor reaches is found to the bit.
+ *
+ * A search is not thread-safe; each controller has its own.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ExpectimaxSearch {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Default number of ticks searched.
+	public static final int DEFAULT_DEPTH = 4;
+	// Default number of transposition table entries; a power of two.
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Value of a meltdown, below any power the reactor can produce.
+	private static final double MELTDOWN_VALUE = -1e12;
+	// Number of states evaluated between checks of the deadline.
+	private static final int CHECK_INTERVAL = 16;
+	// Budgets below this check the deadline at every state, in nanoseconds.
+	private static final long FINE_BUDGET = 1000000;
+	// Share of the budget kept back for abandoning a search and acting on it.
+	private static final double SAFETY_SHARE = 0.2;
+	// Deepest search the table can key.
+	private static final int MAX_DEPTH = 0xff;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ExpectimaxSearch class. Entry keys pack the rod
+	 * heights and the depth, 0 when empty.
+	 */
+	private final ReactorController controller;
+	private final ReactorConfig config;
+	private final int depth;
+	private final int mask;
+	private final long[] temperatures;
+	private final int[] keys;
+	private final double[] values;
+	private long deadline = 0;
+	private boolean timed = false;
+	private boolean expired = false;
+	private int interval = CHECK_INTERVAL;
+	private int countdown = CHECK_INTERVAL;
+	private int reached = 0;
+
+	/**
+	 * ExpectimaxSearch constructor.
+	 *
+	 * @param controller
+	 *            The controller whose checks decide which actions are allowed.
+	 * @param depth
+	 *            The number of ticks searched, from 1 to 255.
+	 * @param capacity
+	 *            The number of transposition table entries, rounded up to a
+	 *            power of two.
+	 */
+	ExpectimaxSearch(final ReactorController controller, final int depth, final int capacity) {
+
+		if (depth < 1 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException(String.format("Depth %d is not from 1 to %d", depth, MAX_DEPTH));
+		}
+
+		final int entries = Integer.highestOneBit(Math.max(capacity - 1, 1)) * 2;
+		this.controller = controller;
+		this.config = controller.getConfig();
+		this.depth = depth;
+		this.mask = entries - 1;
+		this.temperatures = new long[entries];
+		this.keys = new int[entries];
+		this.values = new double[entries];
+	}
+
+	/**
+	 * Returns the action to take in a state.
+	 *
+	 * @param temperature
+	 *            The temperature of the reactor.
+	 * @param rodsHeight
+	 *            The rod heights of the reactor.
+	 * @param budget
+	 *            The nanoseconds the search may take, or 0 to search to the full
+	 *            depth however long it takes.
+	 * @return HOLD, RAISE, LOWER or DROP.
+	 */
+	public ControlPolicy.Action choose(final double temperature, final int rodsHeight, final long budget) {
+
+		if (this.controller.mayMeltdown(temperature, rodsHeight)) {
+			this.reached = 0;
+			return ControlPolicy.Action.DROP;
+		}
+
+		final ReactorConfig config = this.config;
+		// Each tick searched multiplies the states by the actions and noise values.
+		final long branching = 3L * (config.getRandHigh() - config.getRandLow() + 1);
+
+		this.deadline = System.nanoTime() + budget - (long) (budget * SAFETY_SHARE);
+		this.expired = false;
+		this.interval = budget < FINE_BUDGET ? 1 : CHECK_INTERVAL;
+		this.countdown = this.interval;
+
+		ControlPolicy.Action choice = ControlPolicy.Action.LOWER;
+		long elapsed = 0;
+		this.reached = 0;
+
+		for (int depth = 1; depth <= this.depth; depth++) {
+			// The search of one tick runs to the end, so there is always a choice.
+			this.timed = budget > 0 && depth > 1;
+
+			final long start = System.nanoTime();
+
+			if (this.timed && start + elapsed * branching - this.deadline > 0) {
+				break;
+			}
+
+			final ControlPolicy.Action best = this.best(temperature, rodsHeight, depth);
+
+			if (this.expired) {
+				break;
+			}
+			elapsed = System.nanoTime() - start;
+			choice = best;
+			this.reached = depth;
+		}
+
+		return choice;
+	}
+
+	/**
+	 * Returns the number of ticks searched.
+	 *
+	 * @return depth.
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Returns the depth of the deepest search finished by the last choose().
+	 *
+	 * @return depth reached, 0 if the rods were dropped without searching.
+	 */
+	public int getDepthReached() {
+		return this.reached;
+	}
+
+	/**
+	 * Forgets every stored value.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the allowed action with the highest value searched depth ticks
+	 * ahead. Ties go to raising, then holding, as in the THRESHOLD rule.
+	 */
+	private ControlPolicy.Action best(final double temperature, final int rodsHeight, final int depth) {
+		ControlPolicy.Action best = ControlPolicy.Action.LOWER;
+		double bestValue = Double.NEGATIVE_INFINITY;
+
+		if (rodsHeight > 0 && this.controller.canCoolFrom(temperature, rodsHeight - 1)) {
+			bestValue = this.expected(temperature, rodsHeight - 1, depth);
+			best = ControlPolicy.Action.RAISE;
+		}
+		if (this.controller.canCoolFrom(temperature, rodsHeight)) {
+			final double value = this.expected(temperature, rodsHeight, depth);
+
+			if (value > bestValue) {
+				bestValue = value;
+				best = ControlPolicy.Action.HOLD;
+			}
+		}
+		if (this.expected(temperature, this.lowered(rodsHeight), depth) > bestValue) {
+			best = ControlPolicy.Action.LOWER;
+		}
+
+		return best;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the value of the state in which the controller acts, with depth
+	 * ticks left to search.
+	 */
+	private double value(final double temperature, final int rodsHeight, final int depth) {
+
+		if (this.controller.mayMeltdown(temperature, rodsHeight)) {
+			// Dropped rods end the search; the power after the drop is not counted.
+			return 0;
+		}
+
+		final long bits = Double.doubleToLongBits(temperature);
+		final int key = (rodsHeight + 1) << 8 | depth;
+		final int entry = this.entry(bits, key);
+
+		if (this.keys[entry] == key && this.temperatures[entry] == bits) {
+			return this.values[entry];
+		}
+
+		if (this.timed && --this.countdown == 0) {
+			this.countdown = this.interval;
+			if (System.nanoTime() - this.deadline > 0) {
+				this.expired = true;
+			}
+		}
+		if (this.expired) {
+			return 0;
+		}
+
+		double best = this.expected(temperature, this.lowered(rodsHeight), depth);
+
+		if (this.controller.canCoolFrom(temperature, rodsHeight)) {
+			best = Math.max(best, this.expected(temperature, rodsHeight, depth));
+		}
+		if (rodsHeight > 0 && this.controller.canCoolFrom(temperature, rodsHeight - 1)) {
+			best = Math.max(best, this.expected(temperature, rodsHeight - 1, depth));
+		}
+
+		// A value cut short by the deadline is not kept.
+		if (!this.expired) {
+			this.temperatures[entry] = bits;
+			this.keys[entry] = key;
+			this.values[entry] = best;
+		}
+
+		return best;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the expected value of one tick with the rods at rodsHeight, over
+	 * every noise value, and of the depth - 1 ticks after it.
+	 */
+	private double expected(final double temperature, final int rodsHeight, final int depth) {
+		final ReactorConfig config = this.config;
+		double total = 0;
+
+		for (int noise = config.getRandLow(); noise <= config.getRandHigh(); noise++) {
+			final double next = config.heat(temperature, rodsHeight, noise);
+
+			if (next >= config.getMaxTemp()) {
+				total += MELTDOWN_VALUE;
+			} else if (next > config.getMinTemp()) {
+				total += config.power(next);
+
+				if (depth > 1) {
+					total += this.value(next, rodsHeight, depth - 1);
+				}
+			}
+			// A shutdown produces no more power.
+		}
+
+		return total / (config.getRandHigh() - config.getRandLow() + 1);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the rod heights after lowering, which cannot go past the rod
+	 * length.
+	 */
+	private int lowered(final int rodsHeight) {
+		return Math.min(rodsHeight + 1, this.config.getRodLength());
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the table entry of a state.
+	 */
+	private int entry(final long temperature, final int key) {
+		final long hash = (temperature ^ ((long) key << 32)) * 0x9e3779b97f4a7c15L;
+
+		return (int) (hash >>> 32) & this.mask;
+	}
+
+}
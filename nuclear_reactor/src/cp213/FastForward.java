@@ -0,0 +1,245 @@
+package cp213;
+
+/**
+ * Runs a reactor for many ticks without ticking through the steady state it
+ * settles into. When the noise of its config is fixed, the next state of a
+ * reactor is decided by its temperature, rods height and whether its rods
+ * were dropped, so once that state repeats, to the bit, every tick after it
+ * repeats the cycle between. The cycle is found with Brent's algorithm, which
+ * keeps one earlier state and compares it with each new one, and the whole
+ * cycles left to run are then counted in one step: the ticks, the averages
+ * and the statistics of the reactor are updated as if they had been ticked,
+ * and only the ticks left over are ticked. A reactor at an equilibrium, whose
+ * cycle is a single tick, runs a million ticks in a few. Controlled runs can
+ * take far longer to repeat: the state of one from 447 and 50 first repeats
+ * after 3,331,291 ticks, and until a cycle is found, ticking through
+ * FastForward is slower than ticking the reactor alone.
+ *
+ * Everything listening to the reactor must decide from its state alone, as a
+ * ReactorController does in every mode, unless an EXPECTIMAX search is given a
+ * time budget; no commands may be sent to it from elsewhere while it runs.
+ * Listeners are not told of the ticks skipped, and the averages can differ
+ * from a reactor ticked through them in the last bits. When the noise can
+ * vary, every tick is ticked.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class FastForward {
+
+	// ---------------------------------------------------------------
+	/**
+	 * A sum of values compensated with Neumaier's variant of Kahan summation, so
+	 * the sum of a long cycle is exact to the last bits before it is multiplied.
+	 */
+	private static class Sum {
+
+		private double sum = 0;
+		private double compensation = 0;
+
+		void add(final double value) {
+			final double sum = this.sum + value;
+
+			if (Math.abs(this.sum) >= Math.abs(value)) {
+				this.compensation += (this.sum - sum) + value;
+			} else {
+				this.compensation += (value - sum) + this.sum;
+			}
+			this.sum = sum;
+		}
+
+		double get() {
+			return this.sum + this.compensation;
+		}
+
+		void reset() {
+			this.sum = 0;
+			this.compensation = 0;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of FastForward class. The sums cover the ticks since
+	 * the state kept by Brent's algorithm, so when the state comes back they are
+	 * the sums of one cycle.
+	 */
+	private final Reactor reactor;
+	private final Sum temperatureSum = new Sum();
+	private final Sum powerSum = new Sum();
+	private int period = 0;
+	private long skippedTicks = 0;
+
+	/**
+	 * FastForward constructor. The reactor must be ticked by the thread calling
+	 * run(), and by no other.
+	 *
+	 * @param reactor
+	 *            The reactor to run.
+	 */
+	public FastForward(final Reactor reactor) {
+		this.reactor = reactor;
+	}
+
+	/**
+	 * Returns the length of the cycle found by the last run.
+	 *
+	 * @return period in ticks, 0 if no cycle was found.
+	 */
+	public int getPeriod() {
+		return this.period;
+	}
+
+	/**
+	 * Returns the reactor run.
+	 *
+	 * @return reactor.
+	 */
+	public Reactor getReactor() {
+		return this.reactor;
+	}
+
+	/**
+	 * Returns the number of ticks skipped by all runs so far, rather than ticked.
+	 *
+	 * @return skipped ticks.
+	 */
+	public long getSkippedTicks() {
+		return this.skippedTicks;
+	}
+
+	/**
+	 * Runs the reactor for a number of ticks, or until it stops operating.
+	 *
+	 * @param ticks
+	 *            The number of ticks to run, 0 or more.
+	 * @return the number of ticks run, ticked or skipped.
+	 */
+	public int run(final int ticks) {
+
+		if (ticks < 0) {
+			throw new IllegalArgumentException("Ticks " + ticks + " is below 0");
+		}
+
+		final Reactor reactor = this.reactor;
+		final int start = reactor.getTicks();
+		final int end = (int) Math.min((long) start + ticks, Integer.MAX_VALUE);
+
+		this.period = 0;
+
+		if (reactor.getConfig().isNoiseFixed()) {
+			this.detect(end);
+		}
+
+		while (reactor.getStatus() == Reactor.Status.OPERATING && reactor.getTicks() < end) {
+			reactor.tick();
+		}
+
+		return reactor.getTicks() - start;
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Ticks the reactor until its state repeats, then skips the whole cycles
+	 * that fit before the end. Stops early if the reactor stops operating or
+	 * reaches the end first.
+	 */
+	private void detect(final int end) {
+		final Reactor reactor = this.reactor;
+
+		// The first state is saved after a tick, once the listeners have reacted to
+		// it: the commands queued before then need not be those they would send.
+		if (reactor.getStatus() != Reactor.Status.OPERATING || reactor.getTicks() >= end) {
+			return;
+		}
+		reactor.tick();
+
+		long savedTemperature = Double.doubleToLongBits(reactor.getTemperature());
+		int savedHeight = reactor.getRodsHeight();
+		boolean savedDropped = reactor.isRodsDropped();
+		// Ticks since the state was saved, and after how many it is saved again.
+		int length = 0;
+		int limit = 1;
+
+		this.temperatureSum.reset();
+		this.powerSum.reset();
+
+		while (reactor.getStatus() == Reactor.Status.OPERATING && reactor.getTicks() < end) {
+			// The commands sent in reaction to the tick are decided by the state, and
+			// are applied by the next tick alike whenever it comes back.
+			reactor.tick();
+
+			if (reactor.getStatus() != Reactor.Status.OPERATING) {
+				return;
+			}
+
+			final double temperature = reactor.getTemperature();
+			final long bits = Double.doubleToLongBits(temperature);
+			final int height = reactor.getRodsHeight();
+			final boolean dropped = reactor.isRodsDropped();
+
+			length++;
+			this.temperatureSum.add(temperature);
+			this.powerSum.add(reactor.getPower());
+
+			if (bits == savedTemperature && height == savedHeight && dropped == savedDropped) {
+				this.skip(length, end);
+				return;
+			}
+
+			if (length == limit) {
+				savedTemperature = bits;
+				savedHeight = height;
+				savedDropped = dropped;
+				length = 0;
+				limit <<= 1;
+				this.temperatureSum.reset();
+				this.powerSum.reset();
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Skips the whole cycles of period ticks that fit before the end. If the
+	 * reactor has statistics, one more cycle is ticked first to record the
+	 * distribution of a cycle, which is then added for each cycle skipped.
+	 */
+	private void skip(final int period, final int end) {
+		final Reactor reactor = this.reactor;
+		final ReactorStatistics statistics = reactor.getStatistics();
+		ReactorStatistics cycle = null;
+
+		this.period = period;
+
+		if (statistics != null) {
+			if (end - reactor.getTicks() - period < period) {
+				return;
+			}
+
+			cycle = new ReactorStatistics();
+
+			for (int i = 0; i < period; i++) {
+				reactor.tick();
+				cycle.record(reactor.getTemperature(), reactor.getPower());
+			}
+		}
+
+		final int cycles = (end - reactor.getTicks()) / period;
+
+		if (cycles == 0) {
+			return;
+		}
+
+		reactor.skipTicks(cycles * period, this.temperatureSum.get() * cycles, this.powerSum.get() * cycles);
+		this.skippedTicks += (long) cycles * period;
+
+		if (cycle != null) {
+			statistics.getTemperature().merge(cycle.getTemperature(), cycles);
+			statistics.getPower().merge(cycle.getPower(), cycles);
+		}
+	}
+
+}
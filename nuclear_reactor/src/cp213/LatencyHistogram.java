@@ -0,0 +1,193 @@
+package cp213;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in nanoseconds in fixed buckets. Each power of two is split
+ * into SUB_BUCKETS buckets, so a percentile read from the histogram is within
+ * a quarter of the true value. Every bucket is a LongAdder, so any number of
+ * threads can record at once without contending on one counter.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class LatencyHistogram {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Buckets per power of two.
+	public static final int SUB_BUCKETS = 4;
+	// Number of buckets. The last one also counts every longer duration, from
+	// about 2^48 ns, or three days.
+	public static final int BUCKETS = SUB_BUCKETS * 48;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of LatencyHistogram class.
+	 */
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * LatencyHistogram constructor.
+	 */
+	public LatencyHistogram() {
+
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Returns the number of durations recorded in a bucket.
+	 *
+	 * @param bucket
+	 *            The bucket.
+	 * @return count.
+	 */
+	public long getBucketCount(final int bucket) {
+		return this.buckets[bucket].sum();
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 *
+	 * @return count.
+	 */
+	public long getCount() {
+		long count = 0;
+
+		for (LongAdder bucket : this.buckets) {
+			count += bucket.sum();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the longest duration recorded.
+	 *
+	 * @return nanoseconds, 0 if none was recorded.
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the mean of the durations recorded.
+	 *
+	 * @return nanoseconds, 0 if none was recorded.
+	 */
+	public double getMean() {
+		final long count = this.getCount();
+
+		return count == 0 ? 0 : (double) this.total.sum() / count;
+	}
+
+	/**
+	 * Returns an upper bound of a percentile of the durations recorded: the end
+	 * of the bucket holding it.
+	 *
+	 * @param percentile
+	 *            The percentile, from 0 to 100.
+	 * @return nanoseconds, 0 if none was recorded.
+	 */
+	public long getPercentile(final double percentile) {
+		final long[] counts = new long[BUCKETS];
+		long count = 0;
+
+		// Read every bucket once, so the rank is found among the same counts.
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = this.buckets[i].sum();
+			count += counts[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upper(i), this.max.get());
+			}
+		}
+
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the sum of the durations recorded.
+	 *
+	 * @return nanoseconds.
+	 */
+	public long getTotal() {
+		return this.total.sum();
+	}
+
+	/**
+	 * Records a duration. Negative durations count as 0.
+	 *
+	 * @param nanos
+	 *            The duration in nanoseconds.
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(nanos, 0);
+
+		this.buckets[bucket(value)].increment();
+		this.total.add(value);
+		this.max.accumulate(value);
+	}
+
+	/**
+	 * Forgets every duration recorded. Durations recorded meanwhile may be kept
+	 * in part.
+	 */
+	public void reset() {
+
+		for (LongAdder bucket : this.buckets) {
+			bucket.reset();
+		}
+		this.total.reset();
+		this.max.reset();
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the bucket of a duration. Durations below SUB_BUCKETS get a bucket
+	 * each; above, the bucket is the power of two and the two bits below the
+	 * highest.
+	 */
+	private static int bucket(final long nanos) {
+
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		final int bucket = (exponent - 1) * SUB_BUCKETS + (int) (nanos >>> (exponent - 2) & (SUB_BUCKETS - 1));
+
+		return Math.min(bucket, BUCKETS - 1);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the longest duration counted in a bucket.
+	 */
+	private static long upper(final int bucket) {
+
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		final int exponent = bucket / SUB_BUCKETS + 1;
+
+		return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << (exponent - 2)) - 1;
+	}
+
+}
@@ -1,9 +1,10 @@
 package cp213;
 
-import javax.swing.JFrame;
-
 /**
- * Methods to run a reactor or controller.
+ * Methods to run a reactor or controller. Without arguments, the simulation
+ * menu is opened; with arguments, reactors are run headless by ReactorCli.
+ * Main itself refers to no AWT or Swing class, so a headless run never loads
+ * them.
  *
  * @author Nathaniel Carr
  * @version 2017-12-03
@@ -13,11 +14,11 @@ public class Main {
 
 	public static void main(String args[]) {
 
-		final MenuView frame = new MenuView();
-		frame.setSize(400, 150);
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		frame.setLocation(0, 0);
-		frame.setVisible(true);
+		if (args.length > 0) {
+			ReactorCli.main(args);
+		} else {
+			MenuView.open();
+		}
 
 	}
 
@@ -4,8 +4,6 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
@@ -50,17 +48,20 @@ public class MenuView extends JFrame {
 			// Create ReactorController
 			ReactorController rc = new ReactorController(reactor, !automatic);
 
+			// Create SimulationClock
+			SimulationClock clock = new SimulationClock(reactor);
+
 			// Create SimulationView
-			SimulationView frame = new SimulationView(reactor, rc);
+			SimulationView frame = new SimulationView(reactor, rc, clock);
 
 			// Layout and display SimulationView
-			frame.setSize(675, 225);
+			frame.setSize(675, 420);
 			frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 			frame.setLocation(0, 0);
 			frame.setVisible(true);
 
 			// Start reactor.
-			threadPool.execute(reactor);
+			clock.start(scheduler);
 
 			MenuView.this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 			MenuView.this.setVisible(false);
@@ -75,8 +76,7 @@ public class MenuView extends JFrame {
 	 * Private properties of StatusPanel class.
 	 */
 
-	private final static ExecutorService threadPool = Executors.newCachedThreadPool();
-
+	private final static ReactorScheduler scheduler = new ReactorScheduler(1);
 	private JLabel lblTemperature = new JLabel("Initial temperature (°C):");
 	private JLabel lblRodsHeight = new JLabel("Initial rod insertion length (cm):");
 	private JLabel lblTickSpeed = new JLabel("Tick speed (larger is slower):");
@@ -94,6 +94,17 @@ public class MenuView extends JFrame {
 		this.registerListeners();
 	}
 
+	/**
+	 * Lays out and displays a new menu.
+	 */
+	static void open() {
+		final MenuView frame = new MenuView();
+		frame.setSize(400, 150);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setLocation(0, 0);
+		frame.setVisible(true);
+	}
+
 	// ---------------------------------------------------------------
 	/**
 	 * Uses the GridBagLayout to place the labels, spinners, checkboxes, and
@@ -0,0 +1,496 @@
+package cp213;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A plant of many reactors, each with its own ReactorController, ticked in
+ * lock-step. Every tick of the plant runs in three phases: each reactor applies
+ * the commands sent to it, then each reactor ticks, then each controller reacts
+ * to its reactor's new state. No reactor starts a phase before every reactor
+ * has finished the one before it.
+ *
+ * The reactors are split into chunks, one per thread of a fork-join pool, and
+ * the chunks meet at a Phaser between phases. Each chunk sums the power,
+ * statuses and temperatures of its own reactors as it ticks them, and the last
+ * chunk to finish the tick phase merges the sums into the plant totals. A tick
+ * of the plant so takes time in proportion to the reactors per thread rather
+ * than to the reactors in the plant.
+ *
+ * The controllers are detached: a controller reacts in the third phase, not
+ * when its reactor ticks, so it never runs on the thread ticking another
+ * reactor. A plant is stepped by one thread at a time; its totals are read
+ * between steps.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class Plant {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Runs the phases of every tick for a range of reactors, and sums their power,
+	 * statuses and temperatures as it ticks them.
+	 */
+	@SuppressWarnings("serial")
+	private class Chunk extends RecursiveAction {
+
+		private final int from;
+		private final int to;
+		private final int[] statusCounts = new int[STATUSES.length];
+		private final ReactorStatistics statistics;
+		private double power = 0;
+		private double maxTemperature = 0;
+
+		Chunk(final int from, final int to, final ReactorStatistics statistics) {
+			this.from = from;
+			this.to = to;
+			this.statistics = statistics;
+		}
+
+		@Override
+		protected void compute() {
+			final Phaser phaser = Plant.this.phaser;
+			int phase = phaser.getPhase();
+
+			try {
+				while (phase >= 0) {
+					switch (phase % PHASES) {
+
+					case APPLY:
+						this.apply();
+						break;
+
+					case TICK:
+						this.tick();
+						break;
+
+					case REACT:
+						this.react();
+						break;
+
+					}
+					phase = phaser.arriveAndAwaitAdvance();
+				}
+			} catch (RuntimeException | Error e) {
+				// Release the other chunks rather than leave them waiting.
+				phaser.forceTermination();
+				throw e;
+			}
+		}
+
+		/**
+		 * Applies the commands sent to the operating reactors.
+		 */
+		private void apply() {
+			final Reactor[] reactors = Plant.this.reactors;
+
+			for (int i = this.from; i < this.to; i++) {
+				if (reactors[i].getStatus() == Reactor.Status.OPERATING) {
+					reactors[i].applyCommands();
+				}
+			}
+		}
+
+		/**
+		 * Sums the power, statuses and temperatures of the reactors without ticking
+		 * them.
+		 */
+		private void measure() {
+			this.sum(false);
+		}
+
+		/**
+		 * Lets each controller react to the state of its operating reactor.
+		 */
+		private void react() {
+			final Reactor[] reactors = Plant.this.reactors;
+			final ReactorController[] controllers = Plant.this.controllers;
+
+			for (int i = this.from; i < this.to; i++) {
+				if (controllers[i] != null && reactors[i].getStatus() == Reactor.Status.OPERATING) {
+					controllers[i].react(reactors[i]);
+				}
+			}
+		}
+
+		/**
+		 * Ticks the operating reactors.
+		 */
+		private void tick() {
+			this.sum(true);
+		}
+
+		/**
+		 * Ticks the operating reactors if asked, and sums the power, statuses and
+		 * temperatures of the reactors in the same pass. Only operating reactors
+		 * produce power. The state is read by the thread that ticked it, without
+		 * the reactors' locks. Ticks are recorded in the chunk's statistics, if
+		 * any.
+		 */
+		private void sum(final boolean tick) {
+			final Reactor[] reactors = Plant.this.reactors;
+			final ReactorStatistics statistics = tick ? this.statistics : null;
+			double power = 0;
+			double maxTemperature = Double.NEGATIVE_INFINITY;
+
+			Arrays.fill(this.statusCounts, 0);
+
+			for (int i = this.from; i < this.to; i++) {
+				final Reactor reactor = reactors[i];
+
+				if (tick && reactor.getStatus() == Reactor.Status.OPERATING) {
+					if (statistics == null) {
+						reactor.tick();
+					} else {
+						final long start = System.nanoTime();
+						reactor.tick();
+						statistics.recordTick(System.nanoTime() - start);
+					}
+				}
+
+				final Reactor.Status status = reactor.getStatus();
+
+				if (status == Reactor.Status.OPERATING) {
+					power += reactor.getPower();
+
+					if (statistics != null) {
+						statistics.record(reactor.getTemperature(), reactor.getPower());
+					}
+				}
+				maxTemperature = Math.max(maxTemperature, reactor.getTemperature());
+				this.statusCounts[status.ordinal()]++;
+			}
+
+			this.power = power;
+			this.maxTemperature = maxTemperature;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Number of reactors below which a chunk is not split further.
+	public static final int THRESHOLD = 256;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final Reactor.Status[] STATUSES = Reactor.Status.values();
+	// The phases of a tick, in order.
+	private static final int APPLY = 0;
+	private static final int TICK = 1;
+	private static final int REACT = 2;
+	private static final int PHASES = 3;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of Plant class.
+	 */
+	private final Reactor[] reactors;
+	private final ReactorController[] controllers;
+	private final int[] statusCounts = new int[STATUSES.length];
+	private ReactorStatistics statistics = null;
+	private Phaser phaser = null;
+	private Chunk[] chunks = null;
+	private int ticks = 0;
+	private int stepTicks = 0;
+	private double power = 0;
+	private double totalPower = 0;
+	private double maxTemperature = 0;
+
+	/**
+	 * Plant constructor. The plant is given a random seed.
+	 *
+	 * @param size
+	 *            The number of reactors.
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param mode
+	 *            The mode of every reactor's ReactorController, or null for none.
+	 */
+	public Plant(final int size, final double initialTemperature, final int initialRodsHeight,
+			final ReactorController.Mode mode) {
+		this(size, initialTemperature, initialRodsHeight, mode, ThreadLocalRandom.current().nextLong(),
+				ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * Plant constructor. Every reactor is seeded from a generator seeded with the
+	 * plant seed, so a plant built with the same arguments runs the same way
+	 * however its chunks are scheduled.
+	 *
+	 * @param size
+	 *            The number of reactors.
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param mode
+	 *            The mode of every reactor's ReactorController, or null for none.
+	 * @param seed
+	 *            The seed of the reactor seeds.
+	 * @param config
+	 *            The physics parameters of every reactor.
+	 */
+	public Plant(final int size, final double initialTemperature, final int initialRodsHeight,
+			final ReactorController.Mode mode, final long seed, final ReactorConfig config) {
+
+		if (size < 1) {
+			throw new IllegalArgumentException("Plant size " + size + " is below 1");
+		}
+
+		final SplittableRandom seeds = new SplittableRandom(seed);
+		this.reactors = new Reactor[size];
+		this.controllers = new ReactorController[size];
+
+		for (int i = 0; i < size; i++) {
+			this.reactors[i] = new Reactor(initialTemperature, initialRodsHeight, 0, seeds.nextLong(), config);
+
+			if (mode != null) {
+				this.controllers[i] = new ReactorController(mode, config);
+
+				// React to the initial state, as an attached controller does.
+				if (this.reactors[i].getStatus() == Reactor.Status.OPERATING) {
+					this.controllers[i].react(this.reactors[i]);
+				}
+			}
+		}
+
+		// Totals of the initial state.
+		final Chunk all = new Chunk(0, size, null);
+		all.measure();
+		this.merge(new Chunk[] { all });
+	}
+
+	/**
+	 * Returns the controller of a reactor.
+	 *
+	 * @param index
+	 *            The index of the reactor, from 0 to getSize() - 1.
+	 * @return controller, or null if the reactors have none.
+	 */
+	public ReactorController getController(final int index) {
+		return this.controllers[index];
+	}
+
+	/**
+	 * Returns the number of reactors in a status.
+	 *
+	 * @param status
+	 *            The status.
+	 * @return count.
+	 */
+	public int getCount(final Reactor.Status status) {
+		return this.statusCounts[status.ordinal()];
+	}
+
+	/**
+	 * Returns the power produced by the plant on its last tick: the sum of the
+	 * power of its operating reactors.
+	 *
+	 * @return power.
+	 */
+	public double getPower() {
+		return this.power;
+	}
+
+	/**
+	 * Returns a reactor.
+	 *
+	 * @param index
+	 *            The index of the reactor, from 0 to getSize() - 1.
+	 * @return reactor.
+	 */
+	public Reactor getReactor(final int index) {
+		return this.reactors[index];
+	}
+
+	/**
+	 * Returns the number of reactors.
+	 *
+	 * @return size.
+	 */
+	public int getSize() {
+		return this.reactors.length;
+	}
+
+	/**
+	 * Returns the statistics the plant's ticks are recorded in.
+	 *
+	 * @return statistics, or null if ticks are not recorded.
+	 */
+	public ReactorStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the number of ticks the plant has run.
+	 *
+	 * @return ticks.
+	 */
+	public int getTicks() {
+		return this.ticks;
+	}
+
+	/**
+	 * Returns the sum of the plant's power over every tick it has run.
+	 *
+	 * @return total power.
+	 */
+	public double getTotalPower() {
+		return this.totalPower;
+	}
+
+	/**
+	 * Returns the worst temperature in the plant: the highest temperature of any
+	 * of its reactors, operating or not, after the last tick.
+	 *
+	 * @return worst temperature.
+	 */
+	public double getWorstTemperature() {
+		return this.maxTemperature;
+	}
+
+	/**
+	 * Records every tick from now on in statistics: the duration of each
+	 * reactor's tick, and the temperature and power of each reactor still
+	 * operating after it. Each chunk records in statistics of its own, merged
+	 * into these at the end of each step.
+	 *
+	 * @param statistics
+	 *            The statistics to record in, or null to stop recording.
+	 */
+	public void setStatistics(final ReactorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Runs ticks on the common fork-join pool.
+	 *
+	 * @param ticks
+	 *            The number of ticks to run.
+	 * @return the number of ticks run, fewer than asked if every reactor stopped
+	 *         operating.
+	 */
+	public int step(final int ticks) {
+		return this.step(ticks, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs ticks on the given fork-join pool, with one chunk of reactors per
+	 * thread of the pool.
+	 *
+	 * @param ticks
+	 *            The number of ticks to run.
+	 * @param pool
+	 *            The pool to tick the reactors on.
+	 * @return the number of ticks run, fewer than asked if every reactor stopped
+	 *         operating.
+	 */
+	public int step(final int ticks, final ForkJoinPool pool) {
+
+		if (ticks <= 0 || this.getCount(Reactor.Status.OPERATING) == 0) {
+			return 0;
+		}
+
+		final Chunk[] chunks = this.split(pool.getParallelism());
+		final int start = this.ticks;
+
+		this.stepTicks = ticks;
+		this.chunks = chunks;
+		this.phaser = new Phaser(chunks.length) {
+
+			@Override
+			protected boolean onAdvance(final int phase, final int registeredParties) {
+				return Plant.this.advanced(phase);
+			}
+		};
+
+		try {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(chunks)));
+		} finally {
+			this.phaser = null;
+			this.chunks = null;
+
+			for (Chunk chunk : chunks) {
+				if (chunk.statistics != null) {
+					this.statistics.merge(chunk.statistics);
+				}
+			}
+		}
+
+		return this.ticks - start;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Ends a phase of a step, in the last chunk to finish it. The totals are
+	 * merged after each tick phase.
+	 *
+	 * @return true if the step is over, false otherwise.
+	 */
+	private boolean advanced(final int phase) {
+
+		if (phase % PHASES == TICK) {
+			this.merge(this.chunks);
+			this.totalPower += this.power;
+			this.ticks++;
+			this.stepTicks--;
+
+			// With no reactor left operating there is nothing to react to.
+			return this.getCount(Reactor.Status.OPERATING) == 0;
+		}
+
+		return phase % PHASES == REACT && this.stepTicks == 0;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Sets the totals of the plant from the sums of its chunks.
+	 */
+	private void merge(final Chunk[] chunks) {
+		double power = 0;
+		double maxTemperature = Double.NEGATIVE_INFINITY;
+
+		Arrays.fill(this.statusCounts, 0);
+
+		for (Chunk chunk : chunks) {
+			power += chunk.power;
+			maxTemperature = Math.max(maxTemperature, chunk.maxTemperature);
+
+			for (int i = 0; i < STATUSES.length; i++) {
+				this.statusCounts[i] += chunk.statusCounts[i];
+			}
+		}
+
+		this.power = power;
+		this.maxTemperature = maxTemperature;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Splits the reactors into at most threads chunks of nearly equal size, and
+	 * of at least THRESHOLD reactors unless there is only one. Each chunk gets
+	 * statistics of its own if the plant records its ticks.
+	 */
+	private Chunk[] split(final int threads) {
+		final int size = this.reactors.length;
+		final int count = Math.max(1, Math.min(threads, size / THRESHOLD));
+		final Chunk[] chunks = new Chunk[count];
+
+		for (int i = 0; i < count; i++) {
+			chunks[i] = new Chunk((int) ((long) size * i / count), (int) ((long) size * (i + 1) / count),
+					this.statistics == null ? null : new ReactorStatistics());
+		}
+
+		return chunks;
+	}
+
+}
@@ -0,0 +1,415 @@
+package cp213;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solves a ControlPolicy that maximizes the power of a reactor without ever
+ * letting it melt down. The temperature is split into bins of binWidth
+ * degrees, and each state is a bin together with the rod heights and whether
+ * the rods have been dropped. A tick moves the rods by the chosen action, then
+ * heats the reactor by any of the noise values from RAND_LOW to RAND_HIGH.
+ *
+ * Solving takes two steps:
+ *
+ * 1. The safe states are narrowed down until, from every safe state, holding,
+ * raising or lowering the rods keeps every temperature of the bin, under every
+ * noise value, in safe states or shut down. The reactor can be kept operating
+ * from these states forever without dropping the rods; all others get FALLBACK.
+ * The lower the temperature, the safer, so the safe states of each row are the
+ * bins below a limit, and narrowing only lowers the limits.
+ *
+ * 2. Value iteration over the safe actions, with the power of the next tick as
+ * the reward and future power discounted by discount, until no value changes by
+ * more than tolerance. A discount close to 1 approximates the best average
+ * power. Each sweep is split by rows across a fork-join pool.
+ *
+ * Policies are solved for ReactorConfig.DEFAULT.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class PolicySolver {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	public static final double DEFAULT_BIN_WIDTH = 0.5;
+	public static final double DEFAULT_DISCOUNT = 0.98;
+	public static final double DEFAULT_TOLERANCE = 0.01;
+	public static final int DEFAULT_MAX_SWEEPS = 10000;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Number of rows below which a sweep is no longer split.
+	private static final int THRESHOLD = 8;
+	// Widening of each bin, so that rounding never places a temperature outside
+	// the bins it was checked against.
+	private static final double EPSILON = 1e-9;
+	// Dropping the rods always prevents a meltdown but ends the run, so it is left
+	// to the fallback.
+	private static final ControlPolicy.Action[] MOVES = { ControlPolicy.Action.HOLD, ControlPolicy.Action.RAISE,
+			ControlPolicy.Action.LOWER };
+
+	// ---------------------------------------------------------------
+	/**
+	 * The kinds of sweep.
+	 */
+	private enum Sweep {
+		// Update the values of the safe states.
+		UPDATE_VALUES,
+		// Choose the best action of every state.
+		CHOOSE_ACTIONS
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Splits a range of rows in half until it is small enough to sweep on one
+	 * thread. Returns the largest change made to a value.
+	 */
+	@SuppressWarnings("serial")
+	private class SweepTask extends RecursiveTask<Double> {
+
+		private final Sweep sweep;
+		private final int from;
+		private final int to;
+
+		SweepTask(final Sweep sweep, final int from, final int to) {
+			this.sweep = sweep;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Double compute() {
+
+			if (this.to - this.from <= THRESHOLD) {
+				double change = 0;
+
+				for (int row = this.from; row < this.to; row++) {
+					if (this.sweep == Sweep.UPDATE_VALUES) {
+						change = Math.max(change, PolicySolver.this.updateValues(row));
+					} else {
+						PolicySolver.this.chooseActions(row);
+					}
+				}
+				return change;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			SweepTask left = new SweepTask(this.sweep, this.from, middle);
+			SweepTask right = new SweepTask(this.sweep, middle, this.to);
+
+			left.fork();
+			double change = right.compute();
+
+			return Math.max(change, left.join());
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of PolicySolver class.
+	 */
+	private final double binWidth;
+	private final double discount;
+	private final double tolerance;
+	private final int maxSweeps;
+	private final int bins;
+
+	// State of the solve in progress. The safe bins of each row are those below
+	// its limit; values and actions are stored row by row.
+	private int[] limits;
+	private double[] value;
+	private double[] nextValue;
+	private byte[] actions;
+	private int sweeps;
+
+	/**
+	 * PolicySolver constructor with the default settings.
+	 */
+	public PolicySolver() {
+		this(DEFAULT_BIN_WIDTH, DEFAULT_DISCOUNT, DEFAULT_TOLERANCE, DEFAULT_MAX_SWEEPS);
+	}
+
+	/**
+	 * PolicySolver constructor.
+	 *
+	 * @param binWidth
+	 *            The width of the temperature bins. Narrower bins leave more
+	 *            states safe but take longer to solve.
+	 * @param discount
+	 *            The weight of the power of each tick relative to the tick before
+	 *            it, below 1.
+	 * @param tolerance
+	 *            The largest change of a value at which value iteration stops.
+	 * @param maxSweeps
+	 *            The number of value iteration sweeps after which it stops
+	 *            regardless.
+	 */
+	public PolicySolver(final double binWidth, final double discount, final double tolerance, final int maxSweeps) {
+		this.binWidth = binWidth;
+		this.discount = discount;
+		this.tolerance = tolerance;
+		this.maxSweeps = maxSweeps;
+		this.bins = (int) Math.ceil((Reactor.MAX_TEMP - Reactor.MIN_TEMP) / binWidth);
+	}
+
+	/**
+	 * Returns the number of value iteration sweeps of the last solve.
+	 *
+	 * @return sweeps.
+	 */
+	public int getSweeps() {
+		return this.sweeps;
+	}
+
+	/**
+	 * Solves the policy on the common fork-join pool.
+	 *
+	 * @return the policy.
+	 */
+	public ControlPolicy solve() {
+		return this.solve(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Solves the policy on the given fork-join pool.
+	 *
+	 * @param pool
+	 *            The pool to run the sweeps on.
+	 * @return the policy.
+	 */
+	public synchronized ControlPolicy solve(final ForkJoinPool pool) {
+
+		final int states = ControlPolicy.ROWS * this.bins;
+
+		this.limits = new int[ControlPolicy.ROWS];
+		this.value = new double[states];
+		this.nextValue = new double[states];
+		this.actions = new byte[states];
+
+		this.findLimits();
+
+		// Value iteration.
+		double change;
+		this.sweeps = 0;
+		do {
+			change = pool.invoke(new SweepTask(Sweep.UPDATE_VALUES, 0, ControlPolicy.ROWS));
+			double[] swap = this.value;
+			this.value = this.nextValue;
+			this.nextValue = swap;
+			this.sweeps++;
+		} while (change > this.tolerance && this.sweeps < this.maxSweeps);
+
+		pool.invoke(new SweepTask(Sweep.CHOOSE_ACTIONS, 0, ControlPolicy.ROWS));
+		final ControlPolicy policy = new ControlPolicy(this.binWidth, this.bins, this.actions);
+
+		this.limits = null;
+		this.value = this.nextValue = null;
+		this.actions = null;
+
+		return policy;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Lowers the limit of each row until the highest safe bin of every row has a
+	 * safe move. Starts with every bin safe.
+	 */
+	private void findLimits() {
+
+		Arrays.fill(this.limits, this.bins);
+
+		boolean changed;
+		do {
+			changed = false;
+
+			for (int row = 0; row < ControlPolicy.ROWS; row++) {
+				int limit = this.limits[row];
+
+				while (limit > 0 && !this.hasSafeMove(limit - 1, row)) {
+					limit--;
+				}
+				if (limit != this.limits[row]) {
+					this.limits[row] = limit;
+					changed = true;
+				}
+			}
+		} while (changed);
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Updates the values of one row.
+	 *
+	 * @return the largest change made to a value of the row.
+	 */
+	private double updateValues(final int row) {
+
+		final int first = row * this.bins;
+		double change = 0;
+
+		for (int bin = 0; bin < this.bins; bin++) {
+			double best = 0;
+
+			if (bin < this.limits[row]) {
+				best = Double.NEGATIVE_INFINITY;
+
+				for (ControlPolicy.Action move : MOVES) {
+					final int next = nextRow(row, move);
+
+					if (next >= 0 && this.isSafe(bin, next)) {
+						best = Math.max(best, this.expectedValue(bin, next));
+					}
+				}
+			}
+			change = Math.max(change, Math.abs(best - this.value[first + bin]));
+			this.nextValue[first + bin] = best;
+		}
+
+		return change;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Chooses the best action of every state of one row.
+	 */
+	private void chooseActions(final int row) {
+
+		final int first = row * this.bins;
+
+		for (int bin = 0; bin < this.bins; bin++) {
+			ControlPolicy.Action action = ControlPolicy.Action.FALLBACK;
+
+			if (bin < this.limits[row]) {
+				double best = Double.NEGATIVE_INFINITY;
+
+				// Ties go to the earlier move, so the rods are only moved for more power.
+				for (ControlPolicy.Action move : MOVES) {
+					final int next = nextRow(row, move);
+
+					if (next >= 0 && this.isSafe(bin, next)) {
+						final double expected = this.expectedValue(bin, next);
+
+						if (expected > best) {
+							best = expected;
+							action = move;
+						}
+					}
+				}
+			}
+			this.actions[first + bin] = (byte) action.ordinal();
+		}
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Determines whether any move from a state is safe.
+	 */
+	private boolean hasSafeMove(final int bin, final int row) {
+
+		for (ControlPolicy.Action move : MOVES) {
+			final int next = nextRow(row, move);
+
+			if (next >= 0 && this.isSafe(bin, next)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the row reached by a move, or -1 if the move is not possible from
+	 * the row. Dropped rods cannot be moved.
+	 */
+	private static int nextRow(final int row, final ControlPolicy.Action move) {
+
+		if (row == ControlPolicy.DROPPED_ROW) {
+			return move == ControlPolicy.Action.HOLD ? row : -1;
+		}
+
+		switch (move) {
+
+		case HOLD:
+			return row;
+
+		case RAISE:
+			return row > 0 ? row - 1 : -1;
+
+		case LOWER:
+			return row < Reactor.ROD_LENGTH ? row + 1 : -1;
+
+		case DROP:
+			return ControlPolicy.DROPPED_ROW;
+
+		default:
+			return -1;
+
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the rod heights of a row.
+	 */
+	private static int rodsHeight(final int row) {
+		return row == ControlPolicy.DROPPED_ROW ? Reactor.ROD_LENGTH : row;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the bin of a temperature.
+	 */
+	private int binOf(final double temperature) {
+		return Math.max(0, Math.min((int) ((temperature - Reactor.MIN_TEMP) / this.binWidth), this.bins - 1));
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Determines whether ticking from any temperature of a bin into a row is
+	 * certain to end in a safe state or a shutdown.
+	 */
+	private boolean isSafe(final int bin, final int row) {
+
+		final double highest = Reactor.TEMP_FACTOR * (Reactor.MIN_TEMP + (bin + 1) * this.binWidth + EPSILON)
+				- rodsHeight(row) + Reactor.RAND_HIGH;
+
+		if (highest >= Reactor.MAX_TEMP) {
+			return false;
+		}
+
+		// Lower temperatures of the bin end in lower, so also safe, bins.
+		return highest <= Reactor.MIN_TEMP || this.binOf(highest) < this.limits[row];
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the expected discounted power of ticking from the middle of a bin
+	 * into a row, averaged over the noise values.
+	 */
+	private double expectedValue(final int bin, final int row) {
+
+		final double base = Reactor.TEMP_FACTOR * (Reactor.MIN_TEMP + (bin + 0.5) * this.binWidth)
+				- rodsHeight(row);
+		final int first = row * this.bins;
+		double total = 0;
+
+		for (int noise = Reactor.RAND_LOW; noise <= Reactor.RAND_HIGH; noise++) {
+			final double temperature = base + noise;
+
+			// A shutdown produces no more power.
+			if (temperature > Reactor.MIN_TEMP) {
+				total += ReactorConfig.DEFAULT.power(temperature) + this.discount * this.value[first + this.binOf(temperature)];
+			}
+		}
+
+		return total / (Reactor.RAND_HIGH - Reactor.RAND_LOW + 1);
+	}
+
+}
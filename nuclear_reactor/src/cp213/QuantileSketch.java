@@ -0,0 +1,283 @@
+package cp213;
+
+/**
+ * Estimates quantiles of a stream of non-negative values in bounded memory.
+ * Values are counted in buckets whose bounds grow geometrically, so any
+ * quantile read from the sketch is within the relative accuracy of a value
+ * that was added, however large or small the values are. Sketches of the same
+ * accuracy merge by adding their counts, and the merged sketch is the sketch
+ * of both streams.
+ *
+ * The buckets span only the range of values added. Once more than MAX_BUCKETS
+ * would be needed, the lowest buckets are merged into one, so the memory stays
+ * bounded and only quantiles at the very bottom of a stream of extreme range
+ * lose their accuracy. Negative values count as 0.
+ *
+ * A sketch is not thread-safe. Each thread records in its own and the
+ * sketches are merged.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class QuantileSketch {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Default relative accuracy of the quantiles.
+	public static final double DEFAULT_ACCURACY = 0.01;
+	// Most buckets a sketch keeps.
+	public static final int MAX_BUCKETS = 2048;
+	// Values below this count as 0.
+	public static final double MIN_VALUE = 1e-9;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final int INITIAL_BUCKETS = 64;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of QuantileSketch class. Bucket i of counts holds the
+	 * values of index offset + i; an index covers the values from gamma^(index -
+	 * 1) to gamma^index.
+	 */
+	private final double accuracy;
+	private final double gamma;
+	private final double multiplier;
+	private long[] counts = null;
+	private int offset = 0;
+	private long zeroCount = 0;
+	private long count = 0;
+
+	/**
+	 * QuantileSketch constructor with DEFAULT_ACCURACY.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_ACCURACY);
+	}
+
+	/**
+	 * QuantileSketch constructor.
+	 *
+	 * @param accuracy
+	 *            The relative accuracy of the quantiles, above 0 and below 1.
+	 */
+	public QuantileSketch(final double accuracy) {
+
+		if (!(accuracy > 0 && accuracy < 1)) {
+			throw new IllegalArgumentException("Accuracy " + accuracy + " is not between 0 and 1");
+		}
+
+		this.accuracy = accuracy;
+		this.gamma = (1 + accuracy) / (1 - accuracy);
+		this.multiplier = 1 / Math.log(this.gamma);
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value
+	 *            The value.
+	 */
+	public void add(final double value) {
+		this.count++;
+
+		if (!(value >= MIN_VALUE)) {
+			this.zeroCount++;
+			return;
+		}
+
+		final int index = (int) Math.ceil(Math.log(value) * this.multiplier);
+
+		if (this.counts == null) {
+			this.counts = new long[INITIAL_BUCKETS];
+			this.offset = index - INITIAL_BUCKETS / 2;
+		} else if (index < this.offset || index >= this.offset + this.counts.length) {
+			this.cover(index);
+		}
+
+		this.counts[Math.max(index - this.offset, 0)]++;
+	}
+
+	/**
+	 * Returns the relative accuracy of the quantiles.
+	 *
+	 * @return accuracy.
+	 */
+	public double getAccuracy() {
+		return this.accuracy;
+	}
+
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return count.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns an estimate of a quantile of the values added, within the relative
+	 * accuracy of a value added.
+	 *
+	 * @param quantile
+	 *            The quantile, from 0 to 1.
+	 * @return the estimate, 0 if no value was added.
+	 */
+	public double getQuantile(final double quantile) {
+
+		if (this.count == 0) {
+			return 0;
+		}
+
+		// The value of rank r has r of the values added below it.
+		final long rank = (long) (Math.min(Math.max(quantile, 0), 1) * (this.count - 1));
+		long seen = this.zeroCount;
+
+		if (seen > rank) {
+			return 0;
+		}
+
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if (seen > rank) {
+				return this.value(this.offset + i);
+			}
+		}
+
+		return this.value(this.offset + this.counts.length - 1);
+	}
+
+	/**
+	 * Adds the counts of another sketch of the same accuracy to this one.
+	 *
+	 * @param other
+	 *            The sketch to merge into this one.
+	 */
+	public void merge(final QuantileSketch other) {
+		this.merge(other, 1);
+	}
+
+	/**
+	 * Adds the counts of another sketch of the same accuracy to this one a number
+	 * of times, as if its values had been added that many times.
+	 *
+	 * @param other
+	 *            The sketch to merge into this one.
+	 * @param times
+	 *            The number of times, 0 or more.
+	 */
+	public void merge(final QuantileSketch other, final long times) {
+
+		if (other.gamma != this.gamma) {
+			throw new IllegalArgumentException(
+					"Accuracy " + other.accuracy + " does not match accuracy " + this.accuracy);
+		}
+		if (times < 0) {
+			throw new IllegalArgumentException("Times " + times + " is below 0");
+		}
+
+		this.count += other.count * times;
+		this.zeroCount += other.zeroCount * times;
+
+		if (other.counts == null || times == 0) {
+			return;
+		}
+
+		int first = 0;
+		int last = other.counts.length - 1;
+
+		while (first <= last && other.counts[first] == 0) {
+			first++;
+		}
+		while (last >= first && other.counts[last] == 0) {
+			last--;
+		}
+		if (first > last) {
+			return;
+		}
+
+		if (this.counts == null) {
+			this.counts = new long[other.counts.length];
+			this.offset = other.offset;
+		} else {
+			this.cover(other.offset + first);
+			this.cover(other.offset + last);
+		}
+
+		for (int i = first; i <= last; i++) {
+			this.counts[Math.max(other.offset + i - this.offset, 0)] += other.counts[i] * times;
+		}
+	}
+
+	/**
+	 * Forgets every value added.
+	 */
+	public void reset() {
+		this.counts = null;
+		this.offset = 0;
+		this.zeroCount = 0;
+		this.count = 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("QuantileSketch[count=%d, accuracy=%s, buckets=%d]", this.count, this.accuracy,
+				this.counts == null ? 0 : this.counts.length);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Grows the buckets to hold an index. If they would exceed MAX_BUCKETS, the
+	 * lowest are merged, and an index below them falls in the lowest bucket.
+	 */
+	private void cover(final int index) {
+		final int low = Math.min(index, this.offset);
+		final int high = Math.max(index, this.offset + this.counts.length - 1);
+
+		if (low >= this.offset && high < this.offset + this.counts.length) {
+			return;
+		}
+
+		final int needed = high - low + 1;
+
+		if (needed <= MAX_BUCKETS) {
+			// Grow to twice the need, up to the bound, leaving room on the side grown.
+			final int length = Math.min(Math.max(needed * 2, this.counts.length), MAX_BUCKETS);
+			final int newOffset = index < this.offset ? high - length + 1 : low;
+
+			this.resize(length, newOffset);
+		} else {
+			this.resize(MAX_BUCKETS, high - MAX_BUCKETS + 1);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Moves the counts to new buckets starting at newOffset. Counts below the new
+	 * buckets are added to the lowest.
+	 */
+	private void resize(final int length, final int newOffset) {
+		final long[] counts = new long[length];
+
+		for (int i = 0; i < this.counts.length; i++) {
+			if (this.counts[i] != 0) {
+				counts[Math.min(Math.max(this.offset + i - newOffset, 0), length - 1)] += this.counts[i];
+			}
+		}
+
+		this.counts = counts;
+		this.offset = newOffset;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the value reported for a bucket: within the relative accuracy of
+	 * every value it covers.
+	 */
+	private double value(final int index) {
+		return 2 * Math.pow(this.gamma, index) / (this.gamma + 1);
+	}
+
+}
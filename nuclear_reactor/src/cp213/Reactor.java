@@ -2,6 +2,10 @@ package cp213;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A simple nuclear reactor simulation. Given a starting temperature and control
@@ -11,7 +15,7 @@ import java.beans.PropertyChangeSupport;
  * @version 2017-12-03
  *
  */
-public class Reactor implements Runnable {
+public class Reactor implements Controllable, Runnable {
 
 	// ---------------------------------------------------------------
 	/**
@@ -34,7 +38,17 @@ public class Reactor implements Runnable {
 	}
 
 	// ---------------------------------------------------------------
-	// Public Constants.
+	/**
+	 * Enumerated type for the commands that can be sent to the reactor. Commands
+	 * are queued and applied at the start of the next tick.
+	 */
+	public enum Command {
+		DROP, LOWER, QUIT, RAISE
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants. These are the parameters of ReactorConfig.DEFAULT; a
+	// reactor built with another config follows that config instead.
 	// °C - Room temperature.
 	public static final double MIN_TEMP = 25;
 	// °C - Meltdown if exceeded.
@@ -57,12 +71,34 @@ public class Reactor implements Runnable {
 	 */
 	private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
+	// ---------------------------------------------------------------
+	/**
+	 * Allows listeners to receive the readings of every tick. The array is
+	 * replaced, never modified, so tick() can walk it without locking.
+	 */
+	private volatile TickListener[] tickListeners = new TickListener[0];
+
+	// ---------------------------------------------------------------
+	/**
+	 * Commands sent from any thread, applied in arrival order by the thread
+	 * ticking the reactor. The queue is lock-free.
+	 */
+	private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<Command>();
+
+	// ---------------------------------------------------------------
+	/**
+	 * Used as a sequence lock around every change of state, so getSnapshot() can
+	 * read a whole tick without blocking the thread ticking the reactor. Only
+	 * that thread takes the write lock, so it is never contended.
+	 */
+	private final StampedLock stateLock = new StampedLock();
+
 	// ---------------------------------------------------------------
 	/**
 	 * Private properties of Reactor class.
 	 */
 	private int tickSpeed = 200;
-	private Status status = Status.OPERATING;
+	private volatile Status status = Status.OPERATING;
 	private int ticks = 0;
 	private int rodsHeight = 0;
 	private double temperature = 0;
@@ -71,9 +107,18 @@ public class Reactor implements Runnable {
 	private double avgPower = 0;
 	private boolean rodsMoved = false;
 	private boolean rodsDropped = false;
+	private Command appliedCommand = null;
+	private final long seed;
+	private final ReactorConfig config;
+	// Where tick timings go, and the ticks left until the next one is timed.
+	private volatile ReactorMetrics metrics = ReactorMetrics.AGGREGATE;
+	private int sampleCountdown = ReactorMetrics.SAMPLE_INTERVAL;
+	private boolean timing = false;
+	// Where every tick is recorded, if anywhere.
+	private volatile ReactorStatistics statistics = null;
 
 	/**
-	 * Reactor constructor.
+	 * Reactor constructor. The reactor is given a random seed.
 	 *
 	 * @param initialTemperature
 	 *            The initial temperature of the reactor.
@@ -83,21 +128,92 @@ public class Reactor implements Runnable {
 	 *            The speed at which the ticks will occur.
 	 */
 	public Reactor(final double initialTemperature, final int initialRodsHeight, final int tickSpeed) {
+		this(initialTemperature, initialRodsHeight, tickSpeed, ThreadLocalRandom.current().nextLong());
+	}
 
+	/**
+	 * Reactor constructor. Two reactors built with the same arguments and seed
+	 * receive the same temperature changes on every tick. Reactors that should be
+	 * independent must be given unrelated seeds, e.g. successive values of a
+	 * seeded SplittableRandom.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of the reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of the reactor control rods.
+	 * @param tickSpeed
+	 *            The speed at which the ticks will occur.
+	 * @param seed
+	 *            The seed of the reactor's random temperature changes.
+	 */
+	public Reactor(final double initialTemperature, final int initialRodsHeight, final int tickSpeed,
+			final long seed) {
+		this(initialTemperature, initialRodsHeight, tickSpeed, seed, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * Reactor constructor for a reactor with its own physics parameters.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of the reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of the reactor control rods.
+	 * @param tickSpeed
+	 *            The speed at which the ticks will occur.
+	 * @param seed
+	 *            The seed of the reactor's random temperature changes.
+	 * @param config
+	 *            The physics parameters of the reactor.
+	 */
+	public Reactor(final double initialTemperature, final int initialRodsHeight, final int tickSpeed,
+			final long seed, final ReactorConfig config) {
+
+		this.seed = seed;
+		this.config = config;
 		this.rodsHeight = initialRodsHeight;
 		this.temperature = initialTemperature;
 		this.tickSpeed = tickSpeed;
 		this.avgTemperature = initialTemperature;
-		this.avgPower = Math.max(0, Math.min((initialTemperature - 100) * MAX_POWER / (MAX_TEMP - 100), MAX_POWER));
+		this.avgPower = config.power(initialTemperature);
 
-		if (this.temperature <= MIN_TEMP) {
+		if (this.temperature <= config.getMinTemp()) {
 			this.status = Status.SHUTDOWN;
-		} else if (this.temperature >= MAX_TEMP) {
+		} else if (this.temperature >= config.getMaxTemp()) {
 			this.status = Status.MELTDOWN;
 		}
 
 	}
 
+	/**
+	 * Reactor constructor that resumes a run from a snapshot taken at the end of
+	 * one of its ticks. Given the seed and config of the original run, the
+	 * restored reactor continues exactly as the original did.
+	 *
+	 * @param snapshot
+	 *            The state to resume from.
+	 * @param tickSpeed
+	 *            The speed at which the ticks will occur.
+	 * @param seed
+	 *            The seed of the original run.
+	 * @param config
+	 *            The physics parameters of the original run.
+	 */
+	Reactor(final ReactorSnapshot snapshot, final int tickSpeed, final long seed, final ReactorConfig config) {
+
+		this.seed = seed;
+		this.config = config;
+		this.tickSpeed = tickSpeed;
+		this.ticks = snapshot.getTicks();
+		this.temperature = snapshot.getTemperature();
+		this.avgTemperature = snapshot.getAverageTemperature();
+		this.power = snapshot.getPower();
+		this.avgPower = snapshot.getAveragePower();
+		this.rodsHeight = snapshot.getRodsHeight();
+		this.rodsDropped = snapshot.isRodsDropped();
+		this.status = snapshot.getStatus();
+
+	}
+
 	// ---------------------------------------------------------------
 	/**
 	 * Attaches listeners to the model.
@@ -122,17 +238,174 @@ public class Reactor implements Runnable {
 		this.pcs.addPropertyChangeListener(propertyName, listener);
 	}
 
+	// ---------------------------------------------------------------
+	/**
+	 * Attaches a tick listener to the model. Tick listeners are notified before
+	 * property change listeners, in the order they were added.
+	 *
+	 * @param listener
+	 *            The listener to attach to the model.
+	 */
+	public synchronized void addTickListener(final TickListener listener) {
+		final TickListener[] listeners = Arrays.copyOf(this.tickListeners, this.tickListeners.length + 1);
+
+		listeners[listeners.length - 1] = listener;
+		this.tickListeners = listeners;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Detaches a tick listener from the model.
+	 *
+	 * @param listener
+	 *            The listener to detach from the model.
+	 */
+	public synchronized void removeTickListener(final TickListener listener) {
+		final TickListener[] listeners = this.tickListeners;
+
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				final TickListener[] remaining = new TickListener[listeners.length - 1];
+
+				System.arraycopy(listeners, 0, remaining, 0, i);
+				System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+				this.tickListeners = remaining;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Applies the commands received since they were last applied, in the order
+	 * they were sent. At most one rod movement is applied per tick; later
+	 * movements are discarded. Must only be called by the thread ticking the
+	 * reactor. tick() calls this first, so it only needs to be called directly to
+	 * act on commands between ticks (e.g. while paused).
+	 *
+	 * @return true if any command was applied, false if not.
+	 */
+	public boolean applyCommands() {
+
+		// Nothing to apply, so no need for the lock.
+		if (this.commands.isEmpty()) {
+			return false;
+		}
+
+		final Status before = this.status;
+		final boolean applied;
+		final long stamp = this.stateLock.writeLock();
+		try {
+			applied = this.applyQueuedCommands();
+		} finally {
+			this.stateLock.unlockWrite(stamp);
+		}
+
+		if (this.status != before) {
+			this.statusChanged(before);
+		}
+
+		return applied;
+
+	}
+
+	/**
+	 * Applies the queued commands. Must be called with the write lock held.
+	 *
+	 * @return true if any command was applied, false if not.
+	 */
+	private boolean applyQueuedCommands() {
+
+		boolean applied = false;
+		Command command;
+
+		while ((command = this.commands.poll()) != null) {
+
+			if (this.status != Status.OPERATING) {
+				continue;
+			}
+
+			boolean moved = false;
+
+			switch (command) {
+
+			case DROP:
+				moved = this.drop();
+				break;
+
+			case LOWER:
+				moved = this.lower();
+				break;
+
+			case RAISE:
+				moved = this.raise();
+				break;
+
+			case QUIT:
+				this.status = Status.FINISHED;
+				applied = true;
+				break;
+
+			}
+
+			if (moved) {
+				this.appliedCommand = command;
+				applied = true;
+			}
+		}
+
+		return applied;
+
+	}
+
 	/**
 	 * Drops the rods entirely into the reactor core - i.e. set the rods lengths to
-	 * the maximum rods lengths.
+	 * the maximum rods lengths. Takes effect at the start of the next tick.
 	 */
+	@Override
 	public void dropRods() {
 
-		if (this.status == Status.OPERATING && !this.rodsMoved) {
-			this.rodsHeight = ROD_LENGTH;
+		this.commands.offer(Command.DROP);
+
+	}
+
+	/**
+	 * Applies a DROP command.
+	 *
+	 * @return true if the rods moved, false if not.
+	 */
+	private boolean drop() {
+
+		if (!this.rodsMoved) {
+			this.rodsHeight = this.config.getRodLength();
 			this.rodsMoved = true;
 			this.rodsDropped = true;
+			return true;
 		}
+		return false;
+
+	}
+
+	/**
+	 * Returns the rod command applied for the tick in progress, if any. Meant for
+	 * tick listeners; it is cleared once the listeners have been notified. A QUIT
+	 * is not reported here; the FINISHED status shows it.
+	 *
+	 * @return the command, or null if the rods were not moved.
+	 */
+	public Command getAppliedCommand() {
+
+		return this.appliedCommand;
+
+	}
+
+	/**
+	 * Returns the physics parameters of the reactor.
+	 *
+	 * @return config.
+	 */
+	public ReactorConfig getConfig() {
+
+		return this.config;
 
 	}
 
@@ -160,6 +433,19 @@ public class Reactor implements Runnable {
 
 	}
 
+	/**
+	 * Returns the metrics the reactor's timings are recorded in: its own once
+	 * run(), a ReactorScheduler or a SimulationClock ticks it or once given with
+	 * setMetrics(), AGGREGATE otherwise.
+	 *
+	 * @return metrics.
+	 */
+	public ReactorMetrics getMetrics() {
+
+		return this.metrics;
+
+	}
+
 	/**
 	 * Returns the reactor's current power level.
 	 *
@@ -176,17 +462,74 @@ public class Reactor implements Runnable {
 	 *
 	 * @return rodsHeight.
 	 */
+	@Override
 	public int getRodsHeight() {
 
 		return this.rodsHeight;
 
 	}
 
+	/**
+	 * Returns the seed of the reactor's random temperature changes.
+	 *
+	 * @return seed.
+	 */
+	public long getSeed() {
+
+		return this.seed;
+
+	}
+
+	/**
+	 * Returns the reactor's readings at the end of its latest tick. Unlike calling
+	 * the getters one by one, every reading in the snapshot belongs to the same
+	 * tick, whichever thread calls this. Readers never block the reactor; a read
+	 * that overlaps a tick is simply retried.
+	 *
+	 * @return snapshot.
+	 */
+	public ReactorSnapshot getSnapshot() {
+
+		while (true) {
+			final long stamp = this.stateLock.tryOptimisticRead();
+
+			if (stamp != 0) {
+				final int ticks = this.ticks;
+				final double temperature = this.temperature;
+				final double avgTemperature = this.avgTemperature;
+				final double power = this.power;
+				final double avgPower = this.avgPower;
+				final int rodsHeight = this.rodsHeight;
+				final boolean rodsDropped = this.rodsDropped;
+				final Status status = this.status;
+
+				if (this.stateLock.validate(stamp)) {
+					return new ReactorSnapshot(ticks, temperature, avgTemperature, power, avgPower, rodsHeight,
+							rodsDropped, status);
+				}
+			}
+			Thread.yield();
+		}
+
+	}
+
+	/**
+	 * Returns the statistics every tick is recorded in.
+	 *
+	 * @return statistics, or null if ticks are not recorded.
+	 */
+	public ReactorStatistics getStatistics() {
+
+		return this.statistics;
+
+	}
+
 	/**
 	 * Returns the reactor's current status.
 	 *
 	 * @return status.
 	 */
+	@Override
 	public Status getStatus() {
 
 		return this.status;
@@ -198,12 +541,24 @@ public class Reactor implements Runnable {
 	 *
 	 * @return temperature.
 	 */
+	@Override
 	public double getTemperature() {
 
 		return this.temperature;
 
 	}
 
+	/**
+	 * Returns the number of milliseconds between ticks.
+	 *
+	 * @return tickSpeed.
+	 */
+	public int getTickSpeed() {
+
+		return this.tickSpeed;
+
+	}
+
 	/**
 	 * Returns the number of ticks since the beginning of a simulation.
 	 *
@@ -215,35 +570,111 @@ public class Reactor implements Runnable {
 
 	}
 
+	/**
+	 * Returns whether the tick whose listeners are being notified is timed.
+	 * Controllers time their decisions on the same ticks.
+	 *
+	 * @return true if timed, false if not.
+	 */
+	boolean isTimingTick() {
+
+		return this.timing;
+
+	}
+
+	/**
+	 * Returns whether the reactor's rods have been dropped.
+	 *
+	 * @return true if dropped, false if not.
+	 */
+	public boolean isRodsDropped() {
+
+		return this.rodsDropped;
+
+	}
+
+	/**
+	 * Changes the metrics the reactor's timings are recorded in.
+	 *
+	 * @param metrics
+	 *            The new metrics.
+	 */
+	public void setMetrics(final ReactorMetrics metrics) {
+
+		this.metrics = metrics;
+		this.sampleCountdown = 0;
+
+	}
+
+	/**
+	 * Records every tick from now on in statistics: its duration, and the
+	 * temperature and power after it if the reactor is still operating. Each
+	 * tick recorded costs about as much again as the tick itself.
+	 *
+	 * @param statistics
+	 *            The statistics to record in, or null to stop recording.
+	 */
+	public void setStatistics(final ReactorStatistics statistics) {
+
+		this.statistics = statistics;
+
+	}
+
 	/**
 	 * Lower the rod heights by one step. Rods cannot be lowered by more than one
-	 * step per tick.
+	 * step per tick. Takes effect at the start of the next tick.
 	 */
+	@Override
 	public void lowerRods() {
 
-		// Allow rods to be lowered if the reactor is operating, no other movements have
-		// been made in this tick, the rods have not been dropped, and the rods are not
-		// already fully inserted.
-		if (this.status == Status.OPERATING && !this.rodsMoved && !this.rodsDropped && this.rodsHeight < ROD_LENGTH) {
+		this.commands.offer(Command.LOWER);
+
+	}
+
+	/**
+	 * Applies a LOWER command.
+	 *
+	 * @return true if the rods moved, false if not.
+	 */
+	private boolean lower() {
+
+		// Allow rods to be lowered if no other movements have been made in this tick,
+		// the rods have not been dropped, and the rods are not already fully inserted.
+		if (!this.rodsMoved && !this.rodsDropped && this.rodsHeight < this.config.getRodLength()) {
 			this.rodsHeight++;
 			this.rodsMoved = true;
+			return true;
 		}
+		return false;
 
 	}
 
 	/**
 	 * Raise the rod heights by one step. Rods cannot be raised by more than one
-	 * step per tick.
+	 * step per tick. Takes effect at the start of the next tick.
 	 */
+	@Override
 	public void raiseRods() {
 
-		// Allow rods to be raised if the reactor is operating, no other movements have
-		// been made in this tick, the rods have not been dropped, and the rods are not
-		// already fully removed.
-		if (this.status == Status.OPERATING && !this.rodsMoved && !this.rodsDropped && this.rodsHeight > 0) {
+		this.commands.offer(Command.RAISE);
+
+	}
+
+	/**
+	 * Applies a RAISE command.
+	 *
+	 * @return true if the rods moved, false if not.
+	 */
+	private boolean raise() {
+
+		// Allow rods to be raised if no other movements have been made in this tick,
+		// the rods have not been dropped, and the rods are not already fully removed.
+		if (!this.rodsMoved && !this.rodsDropped && this.rodsHeight > 0) {
 			this.rodsHeight--;
 			this.rodsMoved = true;
+			return true;
 		}
+		return false;
 
 	}
 
@@ -252,46 +683,176 @@ public class Reactor implements Runnable {
 	 *
 	 * @see java.lang.Runnable#run()
 	 *
-	 * Run the reactor simulation.
+	 * Run the reactor simulation. While it runs, the reactor records its timings
+	 * in metrics of its own, registered with the platform MBean server.
 	 */
 	@Override
 	public void run() {
 
+		final ReactorMetrics metrics = ReactorMetrics.attach(this, 1);
+		final long tickNanos = this.tickSpeed * 1000000L;
+
 		try {
 			while (this.status == Status.OPERATING) {
+				final long start = System.nanoTime();
+
 				Thread.sleep(this.tickSpeed);
+				metrics.record(ReactorMetrics.Stage.SLEEP_DRIFT, System.nanoTime() - start - tickNanos);
 				this.tick();
 			}
 		} catch (Exception e) {
+		} finally {
+			metrics.unregister();
 		}
 
 	}
 
 	/**
-	 * Increment the simulation tick by one. Update the reactor temperature, power,
-	 * and status (in that order), and allow the rods to be raised or lowered during
-	 * this tick.
+	 * Increment the simulation tick by one. Apply the commands sent since the last
+	 * tick, update the reactor temperature, power, and status (in that order), and
+	 * allow the rods to be raised or lowered during this tick. If a QUIT command
+	 * has ended the simulation, the tick stops after notifying the listeners.
 	 */
 	public void tick() {
 
+		final ReactorEvents.Tick event = ReactorEvents.isRecorderStarted() ? new ReactorEvents.Tick() : null;
+
+		if (event != null) {
+			event.begin();
+		}
+
+		// One tick per sample interval of the metrics is timed.
+		if (--this.sampleCountdown <= 0) {
+			this.timedTick();
+		} else {
+			this.update();
+			this.fireTick();
+		}
+
+		if (event != null && event.shouldCommit()) {
+			event.seed = this.seed;
+			event.tick = this.ticks;
+			event.temperature = this.temperature;
+			event.power = this.power;
+			event.rodsHeight = this.rodsHeight;
+			event.command = this.appliedCommand == null ? null : this.appliedCommand.name();
+			event.status = this.status.name();
+			event.commit();
+		}
+		this.appliedCommand = null;
+
+	}
+
+	/**
+	 * Does the work of tick() and records how long the state update and the
+	 * listeners took.
+	 */
+	private void timedTick() {
+
+		final long start = System.nanoTime();
+		this.update();
+
+		final long ticked = System.nanoTime();
+		this.timing = true;
+		try {
+			this.fireTick();
+		} finally {
+			this.timing = false;
+		}
+
+		final ReactorMetrics metrics = this.metrics;
+		metrics.record(ReactorMetrics.Stage.TICK, ticked - start);
+		metrics.record(ReactorMetrics.Stage.LISTENERS, System.nanoTime() - ticked);
+		this.sampleCountdown = metrics.getSampleInterval();
+
+	}
+
+	/**
+	 * Updates the state for one tick under the write lock, and records the tick
+	 * in the statistics, if any.
+	 */
+	private void update() {
+
+		final ReactorStatistics statistics = this.statistics;
+		final long start = statistics == null ? 0 : System.nanoTime();
+
+		final Status before = this.status;
+		final long stamp = this.stateLock.writeLock();
+		try {
+			this.advance();
+		} finally {
+			this.stateLock.unlockWrite(stamp);
+		}
+
+		if (statistics != null) {
+			statistics.recordTick(System.nanoTime() - start);
+
+			if (this.status == Status.OPERATING) {
+				statistics.record(this.temperature, this.power);
+			}
+		}
+
+		if (this.status != before) {
+			this.statusChanged(before);
+		}
+
+	}
+
+	/**
+	 * Records a change of status for the flight recorder.
+	 *
+	 * @param before
+	 *            The status before the change.
+	 */
+	private void statusChanged(final Status before) {
+
+		if (!ReactorEvents.isRecorderStarted()) {
+			return;
+		}
+
+		final ReactorEvents.StatusChange event = new ReactorEvents.StatusChange();
+
+		if (event.shouldCommit()) {
+			event.seed = this.seed;
+			event.tick = this.ticks;
+			event.temperature = this.temperature;
+			event.rodsHeight = this.rodsHeight;
+			event.from = before.name();
+			event.to = this.status.name();
+			event.commit();
+		}
+
+	}
+
+	/**
+	 * Applies the queued commands and, unless the simulation has been ended,
+	 * updates the state for one tick. Must be called with the write lock held.
+	 */
+	private void advance() {
+
+		// Apply queued commands.
+		this.applyQueuedCommands();
+
+		// Stop if the simulation has been ended.
+		if (this.status == Status.FINISHED) {
+			return;
+		}
+
+		final ReactorConfig config = this.config;
+
 		// Update number of ticks.
 		this.ticks++;
 
 		// Update temperature.
-		this.temperature = Math.min(Math.max(TEMP_FACTOR * this.temperature - this.rodsHeight
-				+ (int) (Math.random() * (RAND_HIGH - RAND_LOW + 1)) + RAND_LOW, MIN_TEMP), MAX_TEMP);
+		this.temperature = config.heat(this.temperature, this.rodsHeight, config.noise(this.seed, this.ticks));
 
 		// Update power.
-		if (this.temperature > MIN_POWER_TEMP) {
-			this.power = Math.max(0, Math.min((this.temperature - 100) * MAX_POWER / (MAX_TEMP - 100), MAX_POWER));
-		} else {
-			this.power = 0;
-		}
+		this.power = config.power(this.temperature);
 
 		// Update status.
-		if (this.temperature >= MAX_TEMP) {
+		if (this.temperature >= config.getMaxTemp()) {
 			this.status = Status.MELTDOWN;
-		} else if (this.temperature <= MIN_TEMP) {
+		} else if (this.temperature <= config.getMinTemp()) {
 			this.status = Status.SHUTDOWN;
 		}
 
@@ -304,16 +865,77 @@ public class Reactor implements Runnable {
 			this.rodsMoved = false;
 		}
 
-		// Signal general property change.
-		this.pcs.firePropertyChange(null, null, null);
+	}
+
+	/**
+	 * Counts ticks that are known to leave the reactor operating in the state it
+	 * is in, without computing them: the ticks and the averages are updated as
+	 * if they had been ticked, up to rounding, and the rest of the state is left
+	 * as it is. The listeners and statistics are not told of them. Used by
+	 * FastForward once the state has been seen to repeat. Must only be called by
+	 * the thread ticking the reactor, between ticks.
+	 *
+	 * @param ticks
+	 *            The number of ticks skipped.
+	 * @param temperatureSum
+	 *            The sum of the temperatures after each of the ticks skipped.
+	 * @param powerSum
+	 *            The sum of the powers after each of the ticks skipped.
+	 */
+	void skipTicks(final int ticks, final double temperatureSum, final double powerSum) {
+
+		final long stamp = this.stateLock.writeLock();
+		try {
+			// The averages cover the initial state and every tick since.
+			final double covered = this.ticks + 1.0;
+
+			this.avgTemperature = (this.avgTemperature * covered + temperatureSum) / (covered + ticks);
+			this.avgPower = (this.avgPower * covered + powerSum) / (covered + ticks);
+			this.ticks += ticks;
+		} finally {
+			this.stateLock.unlockWrite(stamp);
+		}
+
+	}
+
+	/**
+	 * Notifies the listeners of the end of a tick.
+	 */
+	private void fireTick() {
+
+		// Signal the tick to the tick listeners.
+		for (TickListener listener : this.tickListeners) {
+			listener.onTick(this.ticks, this.temperature, this.power, this.rodsHeight, this.status);
+		}
+
+		// Signal general property change. Creating the event is skipped when no one
+		// is listening.
+		if (this.pcs.hasListeners(null)) {
+			final ReactorEvents.PropertyChangeDispatch event = ReactorEvents.isRecorderStarted()
+					? new ReactorEvents.PropertyChangeDispatch()
+					: null;
+
+			if (event != null) {
+				event.begin();
+			}
+
+			this.pcs.firePropertyChange(null, null, null);
+
+			if (event != null && event.shouldCommit()) {
+				event.seed = this.seed;
+				event.tick = this.ticks;
+				event.listeners = this.pcs.getPropertyChangeListeners().length;
+				event.commit();
+			}
+		}
 
 	}
 
 	/**
-	 * Sets reactor status to FINISHED.
+	 * Sets reactor status to FINISHED. Takes effect at the start of the next tick.
 	 */
 	public void quit() {
-		this.status = Status.FINISHED;
+		this.commands.offer(Command.QUIT);
 		return;
 	}
 
@@ -0,0 +1,310 @@
+package cp213;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Runs reactors from the command line, without a GUI, and prints one line of
+ * results per run as CSV or JSON. Nothing here uses AWT or Swing, so the
+ * simulation runs in containers and scripts with no display and starts in
+ * milliseconds.
+ *
+ * Arguments, in order: initial temperature, initial rod heights, tick speed,
+ * automatic (true or false), number of runs, output format (csv or json) and,
+ * optionally, the number of ticks after which a run that is still operating is
+ * ended with quit(). Automatic reactors are driven by a ReactorController, as
+ * in the GUI. A tick speed of 0 ticks each reactor as fast as it can and, if
+ * maxTicks is at least FAST_FORWARD_TICKS, skips the cycles it settles into
+ * with FastForward; above 0, each tick waits tickSpeed milliseconds, as in the
+ * GUI.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorCli {
+
+	// ---------------------------------------------------------------
+	/**
+	 * The output formats.
+	 */
+	public enum Format {
+		CSV, JSON
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Exit status of a run given bad arguments.
+	public static final int USAGE_STATUS = 2;
+	public static final String USAGE = "Usage: <temperature> <rodsHeight> <tickSpeed> <automatic> <runs> <csv|json> [maxTicks]";
+	// Fewest maxTicks for which runs with a tick speed of 0 are fast-forwarded.
+	// Shorter runs rarely reach a cycle: a controlled run from 447 and 50 first
+	// repeats its state after 3,331,291 ticks, and looking for it slows ticking.
+	public static final int FAST_FORWARD_TICKS = 1 << 24;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final String[] COLUMNS = { "run", "seed", "status", "ticks", "temperature", "rodsHeight",
+			"averageTemperature", "averagePower" };
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorCli class.
+	 */
+	private final double initialTemperature;
+	private final int initialRodsHeight;
+	private final int tickSpeed;
+	private final boolean automatic;
+	private final long runs;
+	private final Format format;
+	private final int maxTicks;
+
+	/**
+	 * ReactorCli constructor.
+	 *
+	 * @param initialTemperature
+	 *            The initial temperature of every reactor.
+	 * @param initialRodsHeight
+	 *            The initial heights of every reactor's control rods.
+	 * @param tickSpeed
+	 *            The milliseconds each tick waits, or 0 to not wait.
+	 * @param automatic
+	 *            Whether or not each reactor is driven by a ReactorController.
+	 * @param runs
+	 *            The number of reactors to run, one after the other.
+	 * @param format
+	 *            The output format.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit().
+	 */
+	public ReactorCli(final double initialTemperature, final int initialRodsHeight, final int tickSpeed,
+			final boolean automatic, final long runs, final Format format, final int maxTicks) {
+
+		if (!(initialTemperature >= Reactor.MIN_TEMP && initialTemperature <= Reactor.MAX_TEMP)) {
+			throw new IllegalArgumentException(String.format(Locale.ROOT, "Temperature %s is not from %s to %s",
+					initialTemperature, Reactor.MIN_TEMP, Reactor.MAX_TEMP));
+		}
+		if (initialRodsHeight < 0 || initialRodsHeight > Reactor.ROD_LENGTH) {
+			throw new IllegalArgumentException(
+					String.format("Rods height %d is not from 0 to %d", initialRodsHeight, Reactor.ROD_LENGTH));
+		}
+		if (tickSpeed < 0) {
+			throw new IllegalArgumentException("Tick speed " + tickSpeed + " is below 0");
+		}
+		if (runs < 0) {
+			throw new IllegalArgumentException("Run count " + runs + " is below 0");
+		}
+		if (maxTicks < 0) {
+			throw new IllegalArgumentException("Max ticks " + maxTicks + " is below 0");
+		}
+
+		this.initialTemperature = initialTemperature;
+		this.initialRodsHeight = initialRodsHeight;
+		this.tickSpeed = tickSpeed;
+		this.automatic = automatic;
+		this.runs = runs;
+		this.format = format;
+		this.maxTicks = maxTicks;
+	}
+
+	/**
+	 * Runs the reactors given on the command line and prints their results on
+	 * standard output. Bad arguments print the usage on standard error and exit
+	 * with USAGE_STATUS.
+	 *
+	 * @param args
+	 *            The command line arguments.
+	 */
+	public static void main(final String[] args) {
+		final ReactorCli cli;
+
+		try {
+			cli = parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(USAGE_STATUS);
+			return;
+		}
+
+		final PrintWriter out = new PrintWriter(
+				new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+
+		try {
+			cli.run(out);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Builds the command line run given by its arguments.
+	 *
+	 * @param args
+	 *            The command line arguments.
+	 * @return the command line run.
+	 * @throws IllegalArgumentException
+	 *             if the arguments are missing or malformed. Malformed numbers
+	 *             throw a NumberFormatException.
+	 */
+	public static ReactorCli parse(final String[] args) {
+
+		if (args.length < 6 || args.length > 7) {
+			throw new IllegalArgumentException("Expected 6 or 7 arguments, got " + args.length);
+		}
+
+		return new ReactorCli(Double.parseDouble(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+				parseBoolean(args[3]), Long.parseLong(args[4]), parseFormat(args[5]),
+				args.length > 6 ? Integer.parseInt(args[6]) : BatchSimulation.DEFAULT_MAX_TICKS);
+	}
+
+	/**
+	 * Runs every reactor and prints its results as soon as it ends.
+	 *
+	 * @param out
+	 *            Where the results are printed.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for a tick.
+	 */
+	public void run(final PrintWriter out) throws InterruptedException {
+
+		if (this.format == Format.CSV) {
+			out.println(String.join(",", COLUMNS));
+		} else {
+			out.print('[');
+		}
+
+		for (long run = 0; run < this.runs; run++) {
+			final Reactor reactor = this.runOne();
+
+			if (this.format == Format.CSV) {
+				this.printCsv(out, run, reactor);
+			} else {
+				if (run > 0) {
+					out.print(',');
+				}
+				out.println();
+				this.printJson(out, run, reactor);
+			}
+		}
+
+		if (this.format == Format.JSON) {
+			out.println(this.runs > 0 ? "\n]" : "]");
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Runs a single reactor until it stops operating or reaches maxTicks.
+	 */
+	private Reactor runOne() throws InterruptedException {
+		final Reactor reactor = new Reactor(this.initialTemperature, this.initialRodsHeight, this.tickSpeed);
+
+		if (this.automatic) {
+			new ReactorController(reactor, false);
+		}
+
+		// Without sleeping, a long run settled into a cycle need not tick through it.
+		if (this.tickSpeed == 0 && this.maxTicks >= FAST_FORWARD_TICKS) {
+			new FastForward(reactor).run(this.maxTicks);
+		}
+
+		while (reactor.getStatus() == Reactor.Status.OPERATING) {
+			if (reactor.getTicks() >= this.maxTicks) {
+				reactor.quit();
+			}
+			if (this.tickSpeed > 0) {
+				Thread.sleep(this.tickSpeed);
+			}
+			reactor.tick();
+		}
+
+		return reactor;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Prints the results of a run as a CSV line, in the order of COLUMNS.
+	 */
+	private void printCsv(final PrintWriter out, final long run, final Reactor reactor) {
+		final Object[] values = values(run, reactor);
+		final StringBuilder line = new StringBuilder();
+
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			line.append(values[i]);
+		}
+		out.println(line);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Prints the results of a run as a JSON object, without the line break after
+	 * it.
+	 */
+	private void printJson(final PrintWriter out, final long run, final Reactor reactor) {
+		final Object[] values = values(run, reactor);
+		final StringBuilder object = new StringBuilder("  {");
+
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				object.append(", ");
+			}
+			object.append('"').append(COLUMNS[i]).append("\": ");
+
+			if (values[i] instanceof String) {
+				object.append('"').append(values[i]).append('"');
+			} else {
+				object.append(values[i]);
+			}
+		}
+		out.print(object.append('}'));
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the results of a run, in the order of COLUMNS. Doubles print in
+	 * their shortest exact form, which is valid CSV and JSON in any locale.
+	 */
+	private static Object[] values(final long run, final Reactor reactor) {
+		return new Object[] { run, reactor.getSeed(), reactor.getStatus().name(), reactor.getTicks(),
+				reactor.getTemperature(), reactor.getRodsHeight(), reactor.getAverageTemperature(),
+				reactor.getAveragePower() };
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the boolean written as true or false, in any case.
+	 */
+	private static boolean parseBoolean(final String value) {
+
+		if (value.equalsIgnoreCase("true")) {
+			return true;
+		} else if (value.equalsIgnoreCase("false")) {
+			return false;
+		}
+		throw new IllegalArgumentException("Automatic " + value + " is not true or false");
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the format named, in any case.
+	 */
+	private static Format parseFormat(final String value) {
+
+		try {
+			return Format.valueOf(value.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Format " + value + " is not csv or json");
+		}
+	}
+
+}
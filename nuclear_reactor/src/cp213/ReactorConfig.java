@@ -0,0 +1,261 @@
+package cp213;
+
+/**
+ * The physics parameters of a reactor: its temperature range, power output,
+ * rod length, heating factor and noise range. A config is immutable, so one
+ * instance can be shared by any number of reactors, fleets and controllers on
+ * any threads. DEFAULT holds the Reactor constants.
+ *
+ * Every tick of a reactor goes through heat(), power() and noise(), so Reactor
+ * and ReactorFleet compute the same values from the same config.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public final class ReactorConfig {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// The parameters given by the Reactor constants.
+	public static final ReactorConfig DEFAULT = new ReactorConfig(Reactor.MIN_TEMP, Reactor.MAX_TEMP,
+			Reactor.MIN_POWER_TEMP, Reactor.MAX_POWER, Reactor.ROD_LENGTH, Reactor.TEMP_FACTOR, Reactor.RAND_LOW,
+			Reactor.RAND_HIGH);
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Odd increment between the generator inputs of consecutive ticks.
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorConfig class.
+	 */
+	private final double minTemp;
+	private final double maxTemp;
+	private final double minPowerTemp;
+	private final double maxPower;
+	private final int rodLength;
+	private final double tempFactor;
+	private final int randLow;
+	private final int randHigh;
+	// The cooling limits of THRESHOLD controllers, built by the first one using
+	// this config. Building them twice gives the same table.
+	private volatile double[] coolLimits = null;
+
+	/**
+	 * ReactorConfig constructor.
+	 *
+	 * @param minTemp
+	 *            °C - Shutdown if reached.
+	 * @param maxTemp
+	 *            °C - Meltdown if reached.
+	 * @param minPowerTemp
+	 *            Minimum temperature at which power is generated.
+	 * @param maxPower
+	 *            Maximum power in Mw output at maximum temperature.
+	 * @param rodLength
+	 *            Lengths of rods in cm.
+	 * @param tempFactor
+	 *            Temperature multiplier per tick.
+	 * @param randLow
+	 *            Lowest random temperature increase per tick.
+	 * @param randHigh
+	 *            Highest random temperature increase per tick.
+	 * @throws IllegalArgumentException
+	 *             if the temperatures are out of order, or maxPower, rodLength or
+	 *             tempFactor is negative, or randLow exceeds randHigh.
+	 */
+	public ReactorConfig(final double minTemp, final double maxTemp, final double minPowerTemp,
+			final double maxPower, final int rodLength, final double tempFactor, final int randLow,
+			final int randHigh) {
+
+		if (!(minTemp < maxTemp) || !(minPowerTemp >= minTemp && minPowerTemp < maxTemp)) {
+			throw new IllegalArgumentException(String.format(
+					"Temperatures out of order: minTemp %s, minPowerTemp %s, maxTemp %s", minTemp, minPowerTemp,
+					maxTemp));
+		}
+		if (!(maxPower >= 0) || rodLength < 0 || !(tempFactor >= 0)) {
+			throw new IllegalArgumentException(String.format("Negative maxPower %s, rodLength %d or tempFactor %s",
+					maxPower, rodLength, tempFactor));
+		}
+		if (randLow > randHigh) {
+			throw new IllegalArgumentException(
+					String.format("randLow %d exceeds randHigh %d", randLow, randHigh));
+		}
+
+		this.minTemp = minTemp;
+		this.maxTemp = maxTemp;
+		this.minPowerTemp = minPowerTemp;
+		this.maxPower = maxPower;
+		this.rodLength = rodLength;
+		this.tempFactor = tempFactor;
+		this.randLow = randLow;
+		this.randHigh = randHigh;
+	}
+
+	/**
+	 * Returns the maximum power.
+	 *
+	 * @return maxPower.
+	 */
+	public double getMaxPower() {
+		return this.maxPower;
+	}
+
+	/**
+	 * Returns the meltdown temperature.
+	 *
+	 * @return maxTemp.
+	 */
+	public double getMaxTemp() {
+		return this.maxTemp;
+	}
+
+	/**
+	 * Returns the minimum temperature at which power is generated.
+	 *
+	 * @return minPowerTemp.
+	 */
+	public double getMinPowerTemp() {
+		return this.minPowerTemp;
+	}
+
+	/**
+	 * Returns the shutdown temperature.
+	 *
+	 * @return minTemp.
+	 */
+	public double getMinTemp() {
+		return this.minTemp;
+	}
+
+	/**
+	 * Returns the highest random temperature increase per tick.
+	 *
+	 * @return randHigh.
+	 */
+	public int getRandHigh() {
+		return this.randHigh;
+	}
+
+	/**
+	 * Returns the lowest random temperature increase per tick.
+	 *
+	 * @return randLow.
+	 */
+	public int getRandLow() {
+		return this.randLow;
+	}
+
+	/**
+	 * Returns the length of the rods.
+	 *
+	 * @return rodLength.
+	 */
+	public int getRodLength() {
+		return this.rodLength;
+	}
+
+	/**
+	 * Returns the temperature multiplier per tick.
+	 *
+	 * @return tempFactor.
+	 */
+	public double getTempFactor() {
+		return this.tempFactor;
+	}
+
+	/**
+	 * Returns the temperature after one tick, kept within [minTemp, maxTemp].
+	 *
+	 * @param temperature
+	 *            The temperature before the tick.
+	 * @param rodsHeight
+	 *            The rod heights during the tick.
+	 * @param noise
+	 *            The random temperature change of the tick.
+	 * @return the new temperature.
+	 */
+	public double heat(final double temperature, final int rodsHeight, final int noise) {
+		return Math.min(Math.max(this.tempFactor * temperature - rodsHeight + noise, this.minTemp), this.maxTemp);
+	}
+
+	/**
+	 * Returns whether every tick adds the same noise, randLow.
+	 *
+	 * @return true if fixed, false if not.
+	 */
+	public boolean isNoiseFixed() {
+		return this.randHigh == this.randLow;
+	}
+
+	/**
+	 * Returns the random temperature change for a tick, between randLow and
+	 * randHigh inclusive. The value is a SplitMix64 hash of the seed and the tick
+	 * number, so it needs no shared generator and the same seed always gives the
+	 * same sequence.
+	 *
+	 * @param seed
+	 *            The seed of the reactor.
+	 * @param tick
+	 *            The tick being computed.
+	 * @return the temperature change.
+	 */
+	public int noise(final long seed, final int tick) {
+
+		if (this.randHigh == this.randLow) {
+			return this.randLow;
+		}
+
+		long z = seed + tick * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		z = z ^ (z >>> 31);
+
+		// Scale the upper 32 bits onto the range.
+		return this.randLow + (int) (((z >>> 32) * ((long) this.randHigh - this.randLow + 1)) >>> 32);
+
+	}
+
+	/**
+	 * Returns the power produced at a temperature.
+	 *
+	 * @param temperature
+	 *            The temperature.
+	 * @return power.
+	 */
+	public double power(final double temperature) {
+
+		if (temperature > this.minPowerTemp) {
+			return Math.max(0, Math.min((temperature - this.minPowerTemp) * this.maxPower
+					/ (this.maxTemp - this.minPowerTemp), this.maxPower));
+		}
+		return 0;
+
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"ReactorConfig[minTemp=%s, maxTemp=%s, minPowerTemp=%s, maxPower=%s, rodLength=%d, tempFactor=%s, randLow=%d, randHigh=%d]",
+				this.minTemp, this.maxTemp, this.minPowerTemp, this.maxPower, this.rodLength, this.tempFactor,
+				this.randLow, this.randHigh);
+	}
+
+	/**
+	 * Returns the cooling limits of THRESHOLD controllers, or null if none has
+	 * built them yet.
+	 */
+	double[] getCoolLimits() {
+		return this.coolLimits;
+	}
+
+	/**
+	 * Keeps the cooling limits built for this config.
+	 */
+	void setCoolLimits(final double[] coolLimits) {
+		this.coolLimits = coolLimits;
+	}
+
+}
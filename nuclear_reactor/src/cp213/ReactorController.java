@@ -1,7 +1,6 @@
 package cp213;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A class to control a Reactor model. It's job is to initialize a Reactor and
@@ -13,14 +12,47 @@ import java.beans.PropertyChangeListener;
  */
 public class ReactorController {
 
-	private class ModelChangeListener implements PropertyChangeListener {
+	// ---------------------------------------------------------------
+	/**
+	 * How the controller decides what to do. ITERATIVE and THRESHOLD make the same
+	 * decisions.
+	 */
+	public enum Mode {
+		// Simulate the worst case tick by tick, up to ROD_LENGTH ticks.
+		ITERATIVE,
+		// Compare against a precomputed temperature limit per rod height.
+		THRESHOLD,
+		// Look up the action in a ControlPolicy, deciding as THRESHOLD does where
+		// the policy has no safe action. Its safe states are whole temperature
+		// bins, so it keeps the reactor slightly cooler than THRESHOLD does.
+		POLICY,
+		// Search the next ticks for the action with the most expected power, among
+		// the actions THRESHOLD allows.
+		EXPECTIMAX
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Share of the time between ticks an EXPECTIMAX controller may search for.
+	public static final double SEARCH_SHARE = 0.25;
+
+	// ---------------------------------------------------------------
+	// The policy of POLICY controllers created without one, once solved, and the
+	// solve started by solveDefaultPolicy(), guarded by the class.
+	private static volatile ControlPolicy defaultPolicy = null;
+	private static CompletableFuture<ControlPolicy> defaultPolicySolve = null;
+
+	// ---------------------------------------------------------------
+
+	private class ModelTickListener implements TickListener {
 
 		@Override
-		public void propertyChange(final PropertyChangeEvent arg0) {
+		public void onTick(final int tick, final double temperature, final double power, final int rodsHeight,
+				final Reactor.Status status) {
 
 			// React to change in the model if not suspended.
 			if (!ReactorController.this.suspended) {
-				ReactorController.this.react();
+				ReactorController.this.react(ReactorController.this.model, temperature, rodsHeight);
 			}
 
 		}
@@ -31,6 +63,69 @@ public class ReactorController {
 
 	private boolean suspended = false;
 
+	private final Mode mode;
+
+	// The policy given in POLICY mode, or null to follow the default policy.
+	private final ControlPolicy policy;
+
+	// The physics the controller plans with.
+	private final ReactorConfig config;
+
+	// The cooling limits of the config, outside ITERATIVE mode. Index h + 1 holds
+	// the limit for rod height h, from -1 to the rod length.
+	private final double[] coolLimits;
+
+	// The search of EXPECTIMAX mode, and the nanoseconds it may take per decision.
+	private final ExpectimaxSearch search;
+	private long searchBudget = 0;
+
+	// Decisions left until a detached controller times the next one. One shared by
+	// several threads may time a few more or fewer.
+	private int sampleCountdown = ReactorMetrics.SAMPLE_INTERVAL;
+
+	/**
+	 * Constructor for a controller that is not attached to a reactor. It only acts
+	 * when react(Controllable) is called.
+	 */
+	public ReactorController() {
+		this(Mode.ITERATIVE);
+	}
+
+	/**
+	 * Constructor for a controller that is not attached to a reactor. It only acts
+	 * when react(Controllable) is called.
+	 *
+	 * @param mode
+	 *            How the controller decides whether the reactor can be cooled.
+	 */
+	public ReactorController(final Mode mode) {
+		this(mode, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * Constructor for a controller that is not attached to a reactor and plans
+	 * with the given physics. It only acts when react(Controllable) is called.
+	 *
+	 * @param mode
+	 *            How the controller decides whether the reactor can be cooled.
+	 * @param config
+	 *            The physics parameters of the reactors it controls.
+	 */
+	public ReactorController(final Mode mode, final ReactorConfig config) {
+		this(null, true, mode, null, config);
+	}
+
+	/**
+	 * Constructor for a POLICY controller that is not attached to a reactor. It
+	 * only acts when react(Controllable) is called.
+	 *
+	 * @param policy
+	 *            The policy to follow.
+	 */
+	public ReactorController(final ControlPolicy policy) {
+		this(null, true, Mode.POLICY, policy, ReactorConfig.DEFAULT);
+	}
+
 	/**
 	 * Constructor.
 	 *
@@ -41,14 +136,73 @@ public class ReactorController {
 	 * 
 	 */
 	public ReactorController(Reactor model, boolean suspended) {
-		this.model = model;
-		this.model.addPropertyChangeListener(new ModelChangeListener());
+		this(model, suspended, Mode.ITERATIVE);
+	}
+
+	/**
+	 * Constructor. The controller plans with the config of the model.
+	 *
+	 * @param model
+	 *            The reactor to control.
+	 * @param suspended
+	 *            Whether or not the ReactorController should start suspended.
+	 * @param mode
+	 *            How the controller decides what to do. POLICY controllers follow
+	 *            the policy of solveDefaultPolicy(), and decide as THRESHOLD
+	 *            does until it is solved.
+	 */
+	public ReactorController(final Reactor model, final boolean suspended, final Mode mode) {
+		this(model, suspended, mode, null, model.getConfig());
+	}
+
+	/**
+	 * Constructor for a POLICY controller.
+	 *
+	 * @param model
+	 *            The reactor to control.
+	 * @param suspended
+	 *            Whether or not the ReactorController should start suspended.
+	 * @param policy
+	 *            The policy to follow.
+	 */
+	public ReactorController(final Reactor model, final boolean suspended, final ControlPolicy policy) {
+		this(model, suspended, Mode.POLICY, policy, model.getConfig());
+	}
+
+	/**
+	 * Constructor used by all others. Detached controllers have a null model.
+	 * Policies are solved for the default config, so POLICY controllers must use
+	 * it.
+	 */
+	private ReactorController(final Reactor model, final boolean suspended, final Mode mode,
+			final ControlPolicy policy, final ReactorConfig config) {
 
+		if (mode == Mode.POLICY && config != ReactorConfig.DEFAULT) {
+			throw new IllegalArgumentException("POLICY controllers only control reactors with the default config.");
+		}
+
+		this.model = model;
+		this.mode = mode;
+		this.policy = policy;
+		this.config = config;
+		this.coolLimits = mode == Mode.ITERATIVE ? null : coolLimits(config);
+		this.search = mode == Mode.EXPECTIMAX
+				? new ExpectimaxSearch(this, ExpectimaxSearch.DEFAULT_DEPTH, ExpectimaxSearch.DEFAULT_CAPACITY)
+				: null;
 		this.suspended = suspended;
 
-		// React immediately after being created if not suspended.
-		if (!this.suspended) {
-			this.react();
+		// A reactor ticking in real time leaves the search a share of each tick.
+		if (this.model != null && this.model.getTickSpeed() > 0) {
+			this.searchBudget = (long) (this.model.getTickSpeed() * 1e6 * SEARCH_SHARE);
+		}
+
+		if (this.model != null) {
+			this.model.addTickListener(new ModelTickListener());
+
+			// React immediately after being created if not suspended.
+			if (!this.suspended) {
+				this.react();
+			}
 		}
 	}
 
@@ -71,17 +225,204 @@ public class ReactorController {
 		return this.suspended;
 	}
 
+	/**
+	 * Starts solving the policy of POLICY controllers created without one, with
+	 * the default PolicySolver settings, on a background thread. Solving takes
+	 * seconds; until it is done, those controllers decide as THRESHOLD does.
+	 * Only the first call starts a solve.
+	 *
+	 * @return the solve, done once the policy is followed.
+	 */
+	public static synchronized CompletableFuture<ControlPolicy> solveDefaultPolicy() {
+
+		if (defaultPolicySolve == null) {
+			defaultPolicySolve = CompletableFuture.supplyAsync(() -> {
+				final ControlPolicy policy = new PolicySolver().solve();
+				defaultPolicy = policy;
+				return policy;
+			}, runnable -> {
+				Thread thread = new Thread(runnable, "policy-solver");
+				thread.setDaemon(true);
+				thread.start();
+			});
+		}
+
+		return defaultPolicySolve;
+	}
+
+	/**
+	 * Get the policy followed in POLICY mode.
+	 *
+	 * @return policy, or null if the controller is not in POLICY mode or its
+	 *         default policy is not solved yet.
+	 */
+	public ControlPolicy getPolicy() {
+		return this.mode == Mode.POLICY ? this.policy() : null;
+	}
+
+	/**
+	 * Get the search of EXPECTIMAX mode.
+	 *
+	 * @return search, or null if the controller is not in EXPECTIMAX mode.
+	 */
+	public ExpectimaxSearch getSearch() {
+		return this.search;
+	}
+
+	/**
+	 * Get the nanoseconds the EXPECTIMAX search may take per decision.
+	 *
+	 * @return searchBudget, 0 if the search always goes to its full depth.
+	 */
+	public long getSearchBudget() {
+		return this.searchBudget;
+	}
+
+	/**
+	 * Change the nanoseconds the EXPECTIMAX search may take per decision.
+	 * Controllers of a reactor with a tickSpeed start with SEARCH_SHARE of a
+	 * tick; others search to the full depth, so their runs are repeatable.
+	 *
+	 * @param searchBudget
+	 *            The new budget, or 0 to always search to the full depth.
+	 */
+	public void setSearchBudget(final long searchBudget) {
+		this.searchBudget = searchBudget;
+	}
+
+	/**
+	 * Get the physics parameters the controller plans with.
+	 *
+	 * @return config.
+	 */
+	public ReactorConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Get the mode used to decide what to do.
+	 *
+	 * @return mode.
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+
 	/**
 	 * Determines which action to take.
 	 */
 	private void react() {
+		this.react(this.model);
+	}
+
+	/**
+	 * Determines which action to take for the given reactor and applies it.
+	 *
+	 * @param target
+	 *            The reactor to control.
+	 */
+	public void react(final Controllable target) {
+		this.react(target, target.getTemperature(), target.getRodsHeight());
+	}
+
+	/**
+	 * Determines which action to take given the reactor's readings and applies
+	 * it. The decision is timed on the ticks the model times, and recorded in
+	 * its metrics; a detached controller times one decision in SAMPLE_INTERVAL
+	 * and records it in AGGREGATE.
+	 */
+	private void react(final Controllable target, final double temperature, final int rodsHeight) {
+
+		final ReactorEvents.Decision event = ReactorEvents.isRecorderStarted() ? new ReactorEvents.Decision() : null;
+
+		if (event != null) {
+			event.begin();
+		}
+
+		final ControlPolicy.Action action;
+
+		if (this.model != null ? !this.model.isTimingTick() : --this.sampleCountdown > 0) {
+			action = this.decide(temperature, rodsHeight);
+			apply(target, action);
+		} else {
+			final long start = System.nanoTime();
+			action = this.decide(temperature, rodsHeight);
+			apply(target, action);
+			final long nanos = System.nanoTime() - start;
+
+			if (this.model != null) {
+				this.model.getMetrics().record(ReactorMetrics.Stage.REACT, nanos);
+			} else {
+				ReactorMetrics.AGGREGATE.record(ReactorMetrics.Stage.REACT, nanos);
+				this.sampleCountdown = ReactorMetrics.SAMPLE_INTERVAL;
+			}
+		}
+
+		if (event != null && event.shouldCommit()) {
+			event.mode = this.mode.name();
+			event.temperature = temperature;
+			event.rodsHeight = rodsHeight;
+			event.action = action.name();
+			event.commit();
+		}
+
+	}
+
+	/**
+	 * Determines which action to take given the reactor's readings.
+	 *
+	 * @return HOLD, RAISE, LOWER or DROP.
+	 */
+	private ControlPolicy.Action decide(final double temperature, final int rodsHeight) {
+
+		if (this.mode == Mode.POLICY || this.mode == Mode.EXPECTIMAX) {
+			final ControlPolicy policy = this.mode == Mode.POLICY ? this.policy() : null;
+			// Dropped rods ignore every command, so the rods are taken as not dropped.
+			final ControlPolicy.Action action = this.mode == Mode.EXPECTIMAX
+					? this.search.choose(temperature, rodsHeight, this.searchBudget)
+					: policy != null ? policy.getAction(temperature, rodsHeight, false)
+							: ControlPolicy.Action.FALLBACK;
+
+			// With no safe action, or no policy yet, decide as THRESHOLD does.
+			if (action != ControlPolicy.Action.FALLBACK) {
+				return action;
+			}
+		}
+
+		if (mayMeltdown(temperature, rodsHeight)) {
+			return ControlPolicy.Action.DROP;
+		} else if (canRaise(temperature, rodsHeight)) {
+			return ControlPolicy.Action.RAISE;
+		} else if (!canNeglect(temperature, rodsHeight)) {
+			return ControlPolicy.Action.LOWER;
+		}
+
+		return ControlPolicy.Action.HOLD;
+
+	}
+
+	/**
+	 * Sends the command of an action to the reactor.
+	 */
+	private static void apply(final Controllable target, final ControlPolicy.Action action) {
+
+		switch (action) {
+
+		case RAISE:
+			target.raiseRods();
+			break;
+
+		case LOWER:
+			target.lowerRods();
+			break;
+
+		case DROP:
+			target.dropRods();
+			break;
+
+		default:
+			break;
 
-		if (mayMeltdown(this.model.getTemperature(), this.model.getRodsHeight())) {
-			this.model.dropRods();
-		} else if (canRaise(this.model.getTemperature(), this.model.getRodsHeight())) {
-			this.model.raiseRods();
-		} else if (!canNeglect(this.model.getTemperature(), this.model.getRodsHeight())) {
-			this.model.lowerRods();
 		}
 
 	}
@@ -90,41 +431,124 @@ public class ReactorController {
 	 * Determines whether the reactor may meltdown in the next tick even if the rods
 	 * are lowered.
 	 */
-	private boolean mayMeltdown(final double temperature, int rodsHeight) {
-		return Reactor.TEMP_FACTOR * temperature - ++rodsHeight + Reactor.RAND_HIGH >= Reactor.MAX_TEMP;
+	boolean mayMeltdown(final double temperature, int rodsHeight) {
+		return this.config.getTempFactor() * temperature - ++rodsHeight + this.config.getRandHigh() >= this.config
+				.getMaxTemp();
 	}
 
 	private boolean canRaise(final double temperature, int rodsHeight) {
-
-		double newTemperature = Reactor.TEMP_FACTOR * temperature - --rodsHeight + Reactor.RAND_HIGH;
-
-		return canCool(newTemperature, temperature, rodsHeight);
+		return canCoolFrom(temperature, rodsHeight - 1);
 	}
 
 	private boolean canNeglect(final double temperature, int rodsHeight) {
-		double newTemperature = Reactor.TEMP_FACTOR * temperature - rodsHeight + Reactor.RAND_HIGH;
+		return canCoolFrom(temperature, rodsHeight);
+	}
+
+	/**
+	 * Determines if the reactor can be cooled back to temperature after a
+	 * worst-case tick with the rods at rodsHeight. Outside ITERATIVE mode this is
+	 * a table lookup wherever the table applies.
+	 */
+	boolean canCoolFrom(final double temperature, final int rodsHeight) {
 
-		return canCool(newTemperature, temperature, rodsHeight);
+		if (this.coolLimits != null && temperature >= this.config.getMinTemp()
+				&& temperature <= this.config.getMaxTemp() && rodsHeight >= -1
+				&& rodsHeight <= this.config.getRodLength()) {
+			return temperature <= this.coolLimits[rodsHeight + 1];
+		}
+
+		return canCoolWorstCase(this.config, temperature, rodsHeight);
 	}
 
-	private boolean canCool(double newTemperature, final double temperature, int rodsHeight) {
+	private static boolean canCool(final ReactorConfig config, double newTemperature, final double temperature,
+			int rodsHeight) {
 		boolean canCool = false;
 
 		// Determine if new temperature can be brought down to initial temperature by
 		// assuming worst-case scenario for each randomization and attempting to lower
 		// the rods on each tick.
-		while (newTemperature > temperature && newTemperature < Reactor.MAX_TEMP && rodsHeight <= Reactor.ROD_LENGTH) {
-			newTemperature = Reactor.TEMP_FACTOR * newTemperature - ++rodsHeight + Reactor.RAND_HIGH;
+		while (newTemperature > temperature && newTemperature < config.getMaxTemp()
+				&& rodsHeight <= config.getRodLength()) {
+			newTemperature = config.getTempFactor() * newTemperature - ++rodsHeight + config.getRandHigh();
 		}
 
 		// If the new temperature isn't at or about the max temperature and the rods are
 		// not inserted farther than actually possible, then the temperature can be
 		// brought down reliably.
-		if (newTemperature < Reactor.MAX_TEMP && rodsHeight <= Reactor.ROD_LENGTH) {
+		if (newTemperature < config.getMaxTemp() && rodsHeight <= config.getRodLength()) {
 			canCool = true;
 		}
 
 		return canCool;
 	}
 
+	/**
+	 * Builds the cooling limits. For each rod height the worst-case cooling check
+	 * passes at low temperatures and fails above some temperature, so the limit
+	 * is found by binary search over the ordered bit patterns of the doubles in
+	 * [minTemp, maxTemp]. The limit is the highest temperature that passes, or
+	 * an infinity when the check passes or fails across the whole range.
+	 */
+	private static double[] buildCoolLimits(final ReactorConfig config) {
+
+		final double[] limits = new double[config.getRodLength() + 2];
+
+		for (int rodsHeight = -1; rodsHeight <= config.getRodLength(); rodsHeight++) {
+			double limit;
+
+			if (!canCoolWorstCase(config, config.getMinTemp(), rodsHeight)) {
+				limit = Double.NEGATIVE_INFINITY;
+			} else if (canCoolWorstCase(config, config.getMaxTemp(), rodsHeight)) {
+				limit = Double.POSITIVE_INFINITY;
+			} else {
+				// Invariant: low passes, high fails.
+				long low = Double.doubleToLongBits(config.getMinTemp());
+				long high = Double.doubleToLongBits(config.getMaxTemp());
+
+				while (high - low > 1) {
+					long middle = (low + high) >>> 1;
+
+					if (canCoolWorstCase(config, Double.longBitsToDouble(middle), rodsHeight)) {
+						low = middle;
+					} else {
+						high = middle;
+					}
+				}
+				limit = Double.longBitsToDouble(low);
+			}
+			limits[rodsHeight + 1] = limit;
+		}
+
+		return limits;
+	}
+
+	/**
+	 * Returns the cooling limits of a config, building them the first time a
+	 * controller using the config needs them.
+	 */
+	private static double[] coolLimits(final ReactorConfig config) {
+		double[] limits = config.getCoolLimits();
+
+		if (limits == null) {
+			limits = buildCoolLimits(config);
+			config.setCoolLimits(limits);
+		}
+
+		return limits;
+	}
+
+	/**
+	 * Returns the policy given to the controller, or else the default policy if
+	 * solved.
+	 */
+	private ControlPolicy policy() {
+		return this.policy != null ? this.policy : defaultPolicy;
+	}
+
+	private static boolean canCoolWorstCase(final ReactorConfig config, final double temperature,
+			final int rodsHeight) {
+		return canCool(config, config.getTempFactor() * temperature - rodsHeight + config.getRandHigh(), temperature,
+				rodsHeight);
+	}
+
 }
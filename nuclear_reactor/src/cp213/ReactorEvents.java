@@ -0,0 +1,155 @@
+package cp213;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of the simulation: every tick, every
+ * ReactorController decision, every change of reactor status and every
+ * dispatch of a reactor's property change listeners. Events record the thread
+ * and time they happened on, so a recording ties a slow tick or a meltdown to
+ * what the controller and the views were doing.
+ *
+ * Events are only created once the flight recorder has started, with
+ * -XX:StartFlightRecording or jcmd JFR.start: the first event created
+ * registers the event types, which starts the recorder and takes a few hundred
+ * milliseconds that a short headless run should not pay. Once created, events
+ * are begun unconditionally, and their fields are only set when shouldCommit()
+ * says they will be recorded. Until a recording enables them, begin() and
+ * shouldCommit() do nothing. Tick events can be many; a recording can keep only
+ * the slow ones, e.g. with the setting cp213.Tick#threshold=1 ms.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public final class ReactorEvents {
+
+	// ---------------------------------------------------------------
+	/**
+	 * One tick of a reactor, from applying its commands to notifying its
+	 * listeners.
+	 */
+	@Name("cp213.Tick")
+	@Label("Reactor Tick")
+	@Category({ "Reactor", "Simulation" })
+	@Description("One tick of a reactor, listeners included.")
+	public static final class Tick extends Event {
+
+		@Label("Seed")
+		long seed;
+
+		@Label("Tick")
+		int tick;
+
+		@Label("Temperature")
+		double temperature;
+
+		@Label("Power")
+		double power;
+
+		@Label("Rods Height")
+		int rodsHeight;
+
+		@Label("Command")
+		@Description("The rod command applied in the tick, if any.")
+		String command;
+
+		@Label("Status")
+		String status;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * One decision of a ReactorController.
+	 */
+	@Name("cp213.ControllerDecision")
+	@Label("Controller Decision")
+	@Category({ "Reactor", "Controller" })
+	@Description("A ReactorController deciding and sending a rod action.")
+	public static final class Decision extends Event {
+
+		@Label("Mode")
+		String mode;
+
+		@Label("Temperature")
+		double temperature;
+
+		@Label("Rods Height")
+		int rodsHeight;
+
+		@Label("Action")
+		String action;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * A reactor leaving the OPERATING status.
+	 */
+	@Name("cp213.StatusChange")
+	@Label("Reactor Status Change")
+	@Category({ "Reactor", "Simulation" })
+	@Description("A reactor leaving the OPERATING status.")
+	public static final class StatusChange extends Event {
+
+		@Label("Seed")
+		long seed;
+
+		@Label("Tick")
+		int tick;
+
+		@Label("Temperature")
+		double temperature;
+
+		@Label("Rods Height")
+		int rodsHeight;
+
+		@Label("From")
+		String from;
+
+		@Label("To")
+		String to;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * One notification of a reactor's property change listeners.
+	 */
+	@Name("cp213.PropertyChangeDispatch")
+	@Label("Property Change Dispatch")
+	@Category({ "Reactor", "Views" })
+	@Description("A reactor notifying its property change listeners of a tick.")
+	public static final class PropertyChangeDispatch extends Event {
+
+		@Label("Seed")
+		long seed;
+
+		@Label("Tick")
+		int tick;
+
+		@Label("Listeners")
+		int listeners;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * The class only holds the event types.
+	 */
+	private ReactorEvents() {
+	}
+
+	/**
+	 * Returns whether the flight recorder has started, so that events should be
+	 * created. Asking does not start it.
+	 *
+	 * @return true once the flight recorder has started, false otherwise.
+	 */
+	static boolean isRecorderStarted() {
+		return FlightRecorder.isInitialized();
+	}
+
+}
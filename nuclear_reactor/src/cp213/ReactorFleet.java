@@ -0,0 +1,403 @@
+package cp213;
+
+import java.util.SplittableRandom;
+
+/**
+ * A group of reactors stored as parallel primitive arrays rather than as
+ * Reactor objects. Every operating member is advanced by one loop over the
+ * arrays in tickAll(), using the same physics and noise as Reactor.tick(), so
+ * member i behaves exactly like a Reactor built with the same start values and
+ * seed. Members have no listeners; they are observed through Member views.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorFleet {
+
+	// ---------------------------------------------------------------
+	/**
+	 * A view of one member of the fleet with the same getters and rod commands as
+	 * Reactor. It reads and writes the fleet arrays directly.
+	 */
+	public class Member implements Controllable {
+
+		private final int index;
+
+		private Member(final int index) {
+			this.index = index;
+		}
+
+		/**
+		 * Drops the rods entirely into the reactor core.
+		 */
+		@Override
+		public void dropRods() {
+			final int i = this.index;
+
+			if (ReactorFleet.this.status[i] == OPERATING && !ReactorFleet.this.rodsMoved[i]) {
+				ReactorFleet.this.rodsHeight[i] = ReactorFleet.this.config.getRodLength();
+				ReactorFleet.this.rodsMoved[i] = true;
+				ReactorFleet.this.rodsDropped[i] = true;
+			}
+		}
+
+		/**
+		 * Returns the average power produced by the member.
+		 *
+		 * @return average power.
+		 */
+		public double getAveragePower() {
+			return ReactorFleet.this.avgPower[this.index];
+		}
+
+		/**
+		 * Returns the average temperature of the member.
+		 *
+		 * @return average temperature.
+		 */
+		public double getAverageTemperature() {
+			return ReactorFleet.this.avgTemperature[this.index];
+		}
+
+		/**
+		 * Returns the position of the member in the fleet.
+		 *
+		 * @return index.
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * Returns the member's current power level.
+		 *
+		 * @return power.
+		 */
+		public double getPower() {
+			return ReactorFleet.this.power[this.index];
+		}
+
+		@Override
+		public int getRodsHeight() {
+			return ReactorFleet.this.rodsHeight[this.index];
+		}
+
+		/**
+		 * Returns the seed of the member's random temperature changes.
+		 *
+		 * @return seed.
+		 */
+		public long getSeed() {
+			return ReactorFleet.this.seeds[this.index];
+		}
+
+		@Override
+		public Reactor.Status getStatus() {
+			return STATUSES[ReactorFleet.this.status[this.index]];
+		}
+
+		@Override
+		public double getTemperature() {
+			return ReactorFleet.this.temperature[this.index];
+		}
+
+		/**
+		 * Returns the number of ticks the member has run for.
+		 *
+		 * @return ticks.
+		 */
+		public int getTicks() {
+			return ReactorFleet.this.ticks[this.index];
+		}
+
+		/**
+		 * Lower the rod heights by one step.
+		 */
+		@Override
+		public void lowerRods() {
+			final int i = this.index;
+
+			if (ReactorFleet.this.status[i] == OPERATING && !ReactorFleet.this.rodsMoved[i]
+					&& !ReactorFleet.this.rodsDropped[i] && ReactorFleet.this.rodsHeight[i] < ReactorFleet.this.config
+							.getRodLength()) {
+				ReactorFleet.this.rodsHeight[i]++;
+				ReactorFleet.this.rodsMoved[i] = true;
+			}
+		}
+
+		/**
+		 * Sets the member's status to FINISHED.
+		 */
+		public void quit() {
+			if (ReactorFleet.this.status[this.index] == OPERATING) {
+				ReactorFleet.this.operating--;
+			}
+			ReactorFleet.this.status[this.index] = FINISHED;
+		}
+
+		/**
+		 * Raise the rod heights by one step.
+		 */
+		@Override
+		public void raiseRods() {
+			final int i = this.index;
+
+			if (ReactorFleet.this.status[i] == OPERATING && !ReactorFleet.this.rodsMoved[i]
+					&& !ReactorFleet.this.rodsDropped[i] && ReactorFleet.this.rodsHeight[i] > 0) {
+				ReactorFleet.this.rodsHeight[i]--;
+				ReactorFleet.this.rodsMoved[i] = true;
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Status values indexed by the ordinals kept in the status array.
+	private static final Reactor.Status[] STATUSES = Reactor.Status.values();
+	private static final byte FINISHED = (byte) Reactor.Status.FINISHED.ordinal();
+	private static final byte MELTDOWN = (byte) Reactor.Status.MELTDOWN.ordinal();
+	private static final byte OPERATING = (byte) Reactor.Status.OPERATING.ordinal();
+	private static final byte SHUTDOWN = (byte) Reactor.Status.SHUTDOWN.ordinal();
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorFleet class. Index i of every array belongs to
+	 * member i.
+	 */
+	private final int size;
+	private final ReactorConfig config;
+	private final long[] seeds;
+	private final int[] ticks;
+	private final int[] rodsHeight;
+	private final double[] temperature;
+	private final double[] avgTemperature;
+	private final double[] power;
+	private final double[] avgPower;
+	private final byte[] status;
+	private final boolean[] rodsMoved;
+	private final boolean[] rodsDropped;
+	private final Member[] members;
+	private int operating = 0;
+	private ReactorStatistics statistics = null;
+
+	/**
+	 * ReactorFleet constructor. Every member starts from the same temperature and
+	 * rod heights, with a seed taken from a generator seeded with seed.
+	 *
+	 * @param size
+	 *            The number of reactors in the fleet.
+	 * @param initialTemperature
+	 *            The initial temperature of every member.
+	 * @param initialRodsHeight
+	 *            The initial heights of every member's control rods.
+	 * @param seed
+	 *            The seed from which every member's seed is derived.
+	 */
+	public ReactorFleet(final int size, final double initialTemperature, final int initialRodsHeight,
+			final long seed) {
+		this(size, initialTemperature, initialRodsHeight, seed, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * ReactorFleet constructor for members with their own physics parameters.
+	 * Member i behaves exactly like a Reactor built with the same config.
+	 *
+	 * @param size
+	 *            The number of reactors in the fleet.
+	 * @param initialTemperature
+	 *            The initial temperature of every member.
+	 * @param initialRodsHeight
+	 *            The initial heights of every member's control rods.
+	 * @param seed
+	 *            The seed from which every member's seed is derived.
+	 * @param config
+	 *            The physics parameters of every member.
+	 */
+	public ReactorFleet(final int size, final double initialTemperature, final int initialRodsHeight,
+			final long seed, final ReactorConfig config) {
+
+		this.size = size;
+		this.config = config;
+		this.seeds = new long[size];
+		this.ticks = new int[size];
+		this.rodsHeight = new int[size];
+		this.temperature = new double[size];
+		this.avgTemperature = new double[size];
+		this.power = new double[size];
+		this.avgPower = new double[size];
+		this.status = new byte[size];
+		this.rodsMoved = new boolean[size];
+		this.rodsDropped = new boolean[size];
+		this.members = new Member[size];
+
+		final SplittableRandom random = new SplittableRandom(seed);
+		final double initialAvgPower = config.power(initialTemperature);
+		byte initialStatus = OPERATING;
+
+		if (initialTemperature <= config.getMinTemp()) {
+			initialStatus = SHUTDOWN;
+		} else if (initialTemperature >= config.getMaxTemp()) {
+			initialStatus = MELTDOWN;
+		}
+
+		for (int i = 0; i < size; i++) {
+			this.seeds[i] = random.nextLong();
+			this.rodsHeight[i] = initialRodsHeight;
+			this.temperature[i] = initialTemperature;
+			this.avgTemperature[i] = initialTemperature;
+			this.avgPower[i] = initialAvgPower;
+			this.status[i] = initialStatus;
+			this.members[i] = new Member(i);
+		}
+
+		if (initialStatus == OPERATING) {
+			this.operating = size;
+		}
+	}
+
+	/**
+	 * Returns the view of one member of the fleet.
+	 *
+	 * @param index
+	 *            The position of the member.
+	 * @return the member.
+	 */
+	public Member get(final int index) {
+		return this.members[index];
+	}
+
+	/**
+	 * Returns the physics parameters of every member.
+	 *
+	 * @return config.
+	 */
+	public ReactorConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Returns the number of members that are still operating.
+	 *
+	 * @return operating members.
+	 */
+	public int getOperating() {
+		return this.operating;
+	}
+
+	/**
+	 * Returns the statistics every tickAll() is recorded in.
+	 *
+	 * @return statistics, or null if ticks are not recorded.
+	 */
+	public ReactorStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Records every tickAll() from now on in statistics: the temperature and power
+	 * of each member still operating after it, and its duration divided by the
+	 * members it ticked, as one tick duration.
+	 *
+	 * @param statistics
+	 *            The statistics to record in, or null to stop recording.
+	 */
+	public void setStatistics(final ReactorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Returns the number of members in the fleet.
+	 *
+	 * @return size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Lets the controller act on every operating member.
+	 *
+	 * @param controller
+	 *            The controller deciding each member's rod command.
+	 */
+	public void reactAll(final ReactorController controller) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.status[i] == OPERATING) {
+				controller.react(this.members[i]);
+			}
+		}
+	}
+
+	/**
+	 * Advances every operating member by one tick. Update each member's
+	 * temperature, power, status and averages exactly as Reactor.tick() does.
+	 *
+	 * @return the number of members still operating.
+	 */
+	public int tickAll() {
+
+		// The bounds are read once; heat() and power() are small enough to inline.
+		final ReactorConfig config = this.config;
+		final double minTemp = config.getMinTemp();
+		final double maxTemp = config.getMaxTemp();
+		final boolean noiseFixed = config.isNoiseFixed();
+		final int randLow = config.getRandLow();
+		final long[] seeds = this.seeds;
+		final int[] ticks = this.ticks;
+		final int[] rodsHeight = this.rodsHeight;
+		final double[] temperature = this.temperature;
+		final double[] avgTemperature = this.avgTemperature;
+		final double[] power = this.power;
+		final double[] avgPower = this.avgPower;
+		final byte[] status = this.status;
+		final boolean[] rodsMoved = this.rodsMoved;
+		final ReactorStatistics statistics = this.statistics;
+		final long start = statistics == null ? 0 : System.nanoTime();
+		// Every member operating now is ticked.
+		final int ticked = this.operating;
+		int operating = 0;
+
+		for (int i = 0; i < this.size; i++) {
+
+			if (status[i] != OPERATING) {
+				continue;
+			}
+
+			final int tick = ++ticks[i];
+
+			// Update temperature.
+			final int noise = noiseFixed ? randLow : config.noise(seeds[i], tick);
+			final double t = config.heat(temperature[i], rodsHeight[i], noise);
+			temperature[i] = t;
+
+			// Update power.
+			final double p = config.power(t);
+			power[i] = p;
+
+			// Update status, and averages only if still operating.
+			if (t >= maxTemp) {
+				status[i] = MELTDOWN;
+			} else if (t <= minTemp) {
+				status[i] = SHUTDOWN;
+			} else {
+				avgTemperature[i] = (avgTemperature[i] * tick + t) / (tick + 1);
+				avgPower[i] = (avgPower[i] * tick + p) / (tick + 1);
+				rodsMoved[i] = false;
+				operating++;
+
+				if (statistics != null) {
+					statistics.record(t, p);
+				}
+			}
+		}
+
+		if (statistics != null && ticked > 0) {
+			statistics.recordTick((System.nanoTime() - start) / ticked);
+		}
+
+		this.operating = operating;
+		return operating;
+
+	}
+
+}
@@ -0,0 +1,307 @@
+package cp213;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Times the stages of a reactor's ticks: the state update, the notification of
+ * the listeners, the decisions of its ReactorController and, for reactors
+ * ticking in real time, how far each sleep between ticks overran tickSpeed.
+ * Only one tick and one decision in getSampleInterval() is timed, so a tick
+ * that is not timed costs a counter decrement. Sleeps are all timed.
+ *
+ * Every duration is also recorded in AGGREGATE, which covers the whole JVM.
+ * Reactors record only in AGGREGATE, one tick in SAMPLE_INTERVAL, until they
+ * get their own metrics. Whatever ticks a reactor for as long as it operates
+ * gives it metrics of its own with attach(): run() and a ReactorScheduler time
+ * every tick, since their ticks are far apart, and a SimulationClock, which
+ * may tick without pause, one in SAMPLE_INTERVAL. The reactors of a Plant, of
+ * which there may be thousands, record only in AGGREGATE. Metrics can be
+ * registered with the platform MBean server to be read over JMX, under the
+ * name "cp213:type=ReactorMetrics,name=<name>".
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorMetrics implements ReactorMetricsMBean {
+
+	// ---------------------------------------------------------------
+	/**
+	 * The timed stages.
+	 */
+	public enum Stage {
+		TICK, LISTENERS, REACT, SLEEP_DRIFT
+	}
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Number of ticks or decisions per sample timed by AGGREGATE.
+	public static final int SAMPLE_INTERVAL = 256;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final String DOMAIN = "cp213";
+	private static final Stage[] STAGES = Stage.values();
+	// Number used in the name of the next reactor's metrics.
+	private static final AtomicInteger NEXT_REACTOR = new AtomicInteger();
+
+	// ---------------------------------------------------------------
+	// Public Constants. Built after the private ones it needs.
+	// The metrics of every reactor and controller in the JVM.
+	public static final ReactorMetrics AGGREGATE = new ReactorMetrics("all", SAMPLE_INTERVAL, null);
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorMetrics class.
+	 */
+	private final String name;
+	private final int sampleInterval;
+	private final ReactorMetrics parent;
+	private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+	private ObjectName registered = null;
+
+	/**
+	 * ReactorMetrics constructor for the metrics of one reactor, timing every
+	 * tick and decision. Every duration recorded is also recorded in AGGREGATE.
+	 *
+	 * @param name
+	 *            The name under which the metrics are registered.
+	 */
+	public ReactorMetrics(final String name) {
+		this(name, 1, AGGREGATE);
+	}
+
+	/**
+	 * ReactorMetrics constructor for the metrics of one reactor. Every duration
+	 * recorded is also recorded in AGGREGATE.
+	 *
+	 * @param name
+	 *            The name under which the metrics are registered.
+	 * @param sampleInterval
+	 *            The number of ticks or decisions per sample timed.
+	 */
+	public ReactorMetrics(final String name, final int sampleInterval) {
+		this(name, sampleInterval, AGGREGATE);
+	}
+
+	/**
+	 * ReactorMetrics constructor used by the others.
+	 */
+	private ReactorMetrics(final String name, final int sampleInterval, final ReactorMetrics parent) {
+
+		if (sampleInterval < 1) {
+			throw new IllegalArgumentException("Sample interval " + sampleInterval + " is below 1");
+		}
+
+		this.name = name;
+		this.sampleInterval = sampleInterval;
+		this.parent = parent;
+
+		for (int i = 0; i < STAGES.length; i++) {
+			this.histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Gives a reactor metrics of its own, under a new name, and registers them
+	 * with the platform MBean server. Whoever attaches them unregisters them once
+	 * the reactor stops.
+	 *
+	 * @param reactor
+	 *            The reactor to record the timings of.
+	 * @param sampleInterval
+	 *            The number of ticks or decisions per sample timed.
+	 * @return the metrics.
+	 */
+	public static ReactorMetrics attach(final Reactor reactor, final int sampleInterval) {
+		final ReactorMetrics metrics = new ReactorMetrics(nextReactorName(), sampleInterval);
+
+		reactor.setMetrics(metrics);
+		try {
+			metrics.register();
+		} catch (JMException e) {
+			// The timings are still recorded, only not visible over JMX.
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * Returns a new name for the metrics of a reactor, unique in the JVM.
+	 *
+	 * @return name.
+	 */
+	public static String nextReactorName() {
+		return "reactor-" + NEXT_REACTOR.incrementAndGet();
+	}
+
+	/**
+	 * Returns the histogram of a stage.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @return histogram.
+	 */
+	public LatencyHistogram getHistogram(final Stage stage) {
+		return this.histograms[stage.ordinal()];
+	}
+
+	@Override
+	public long getListenersMaxNanos() {
+		return this.getHistogram(Stage.LISTENERS).getMax();
+	}
+
+	@Override
+	public double getListenersMeanNanos() {
+		return this.getHistogram(Stage.LISTENERS).getMean();
+	}
+
+	@Override
+	public long getListenersP99Nanos() {
+		return this.getHistogram(Stage.LISTENERS).getPercentile(99);
+	}
+
+	/**
+	 * Returns the name under which the metrics are registered.
+	 *
+	 * @return name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public long getReactMaxNanos() {
+		return this.getHistogram(Stage.REACT).getMax();
+	}
+
+	@Override
+	public double getReactMeanNanos() {
+		return this.getHistogram(Stage.REACT).getMean();
+	}
+
+	@Override
+	public long getReactP99Nanos() {
+		return this.getHistogram(Stage.REACT).getPercentile(99);
+	}
+
+	@Override
+	public long getReactSamples() {
+		return this.getHistogram(Stage.REACT).getCount();
+	}
+
+	@Override
+	public int getSampleInterval() {
+		return this.sampleInterval;
+	}
+
+	@Override
+	public long getSleepDriftMaxNanos() {
+		return this.getHistogram(Stage.SLEEP_DRIFT).getMax();
+	}
+
+	@Override
+	public double getSleepDriftMeanNanos() {
+		return this.getHistogram(Stage.SLEEP_DRIFT).getMean();
+	}
+
+	@Override
+	public long getSleepDriftP99Nanos() {
+		return this.getHistogram(Stage.SLEEP_DRIFT).getPercentile(99);
+	}
+
+	@Override
+	public long getTickMaxNanos() {
+		return this.getHistogram(Stage.TICK).getMax();
+	}
+
+	@Override
+	public double getTickMeanNanos() {
+		return this.getHistogram(Stage.TICK).getMean();
+	}
+
+	@Override
+	public long getTickP99Nanos() {
+		return this.getHistogram(Stage.TICK).getPercentile(99);
+	}
+
+	@Override
+	public long getTickSamples() {
+		return this.getHistogram(Stage.TICK).getCount();
+	}
+
+	/**
+	 * Records the duration of a stage, here and in AGGREGATE.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @param nanos
+	 *            The duration in nanoseconds.
+	 */
+	public void record(final Stage stage, final long nanos) {
+		this.histograms[stage.ordinal()].record(nanos);
+
+		if (this.parent != null) {
+			this.parent.record(stage, nanos);
+		}
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, along with
+	 * AGGREGATE if it is not registered yet.
+	 *
+	 * @throws JMException
+	 *             if the metrics cannot be registered, e.g. because metrics of the
+	 *             same name already are.
+	 */
+	public synchronized void register() throws JMException {
+
+		if (this.parent != null) {
+			this.parent.register();
+		}
+
+		if (this.registered == null) {
+			final ObjectName objectName = new ObjectName(
+					DOMAIN + ":type=ReactorMetrics,name=" + ObjectName.quote(this.name));
+
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			this.registered = objectName;
+		}
+	}
+
+	/**
+	 * Forgets every duration recorded. Durations reset in the metrics of a
+	 * reactor are kept in AGGREGATE.
+	 */
+	@Override
+	public void reset() {
+
+		for (LatencyHistogram histogram : this.histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Unregisters the metrics from the platform MBean server, if they are
+	 * registered. AGGREGATE stays registered.
+	 */
+	public synchronized void unregister() {
+
+		if (this.registered != null) {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			try {
+				server.unregisterMBean(this.registered);
+			} catch (JMException e) {
+				// Already unregistered by someone else.
+			}
+			this.registered = null;
+		}
+	}
+
+}
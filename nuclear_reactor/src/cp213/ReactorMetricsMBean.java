@@ -0,0 +1,127 @@
+package cp213;
+
+/**
+ * The management interface of ReactorMetrics. Durations are in nanoseconds and
+ * percentiles are upper bounds, as read from a LatencyHistogram.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public interface ReactorMetricsMBean {
+
+	/**
+	 * Returns the longest time taken to notify the listeners of a sampled tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getListenersMaxNanos();
+
+	/**
+	 * Returns the mean time taken to notify the listeners of a sampled tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	double getListenersMeanNanos();
+
+	/**
+	 * Returns the 99th percentile of the time taken to notify the listeners of a
+	 * tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getListenersP99Nanos();
+
+	/**
+	 * Returns the longest time taken by a sampled ReactorController decision.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getReactMaxNanos();
+
+	/**
+	 * Returns the mean time taken by a sampled ReactorController decision.
+	 *
+	 * @return nanoseconds.
+	 */
+	double getReactMeanNanos();
+
+	/**
+	 * Returns the 99th percentile of the time taken by a ReactorController
+	 * decision.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getReactP99Nanos();
+
+	/**
+	 * Returns the number of ReactorController decisions timed.
+	 *
+	 * @return samples.
+	 */
+	long getReactSamples();
+
+	/**
+	 * Returns the number of ticks, decisions or sleeps per sample timed.
+	 *
+	 * @return interval.
+	 */
+	int getSampleInterval();
+
+	/**
+	 * Returns the longest time by which a sleep between ticks overran tickSpeed.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getSleepDriftMaxNanos();
+
+	/**
+	 * Returns the mean time by which a sleep between ticks overran tickSpeed.
+	 *
+	 * @return nanoseconds.
+	 */
+	double getSleepDriftMeanNanos();
+
+	/**
+	 * Returns the 99th percentile of the time by which a sleep between ticks
+	 * overran tickSpeed.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getSleepDriftP99Nanos();
+
+	/**
+	 * Returns the longest time taken by the state update of a sampled tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getTickMaxNanos();
+
+	/**
+	 * Returns the mean time taken by the state update of a sampled tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	double getTickMeanNanos();
+
+	/**
+	 * Returns the 99th percentile of the time taken by the state update of a
+	 * tick.
+	 *
+	 * @return nanoseconds.
+	 */
+	long getTickP99Nanos();
+
+	/**
+	 * Returns the number of ticks timed.
+	 *
+	 * @return samples.
+	 */
+	long getTickSamples();
+
+	/**
+	 * Forgets every duration recorded.
+	 */
+	void reset();
+
+}
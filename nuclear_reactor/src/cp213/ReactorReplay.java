@@ -0,0 +1,312 @@
+package cp213;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebuilds a run recorded by a TelemetryRecorder. The recorded rod commands are
+ * fed back to a reactor with the recorded seed, tick by tick and without
+ * sleeping, which reproduces the run exactly. verify() checks every replayed
+ * tick against its record, and seek() returns the reactor as it was after any
+ * number of ticks.
+ *
+ * The run is replayed once when it is opened, keeping the state of the reactor
+ * every CHECKPOINT_INTERVAL records, and seek() starts from the nearest of
+ * these checkpoints, so any seek replays fewer than CHECKPOINT_INTERVAL ticks.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorReplay {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Number of records between checkpoints.
+	public static final int CHECKPOINT_INTERVAL = 4096;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final Reactor.Command[] COMMANDS = Reactor.Command.values();
+	private static final Reactor.Status[] STATUSES = Reactor.Status.values();
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorReplay class.
+	 */
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final int segmentRecords;
+	private final long records;
+	private final long seed;
+	private final int tickSpeed;
+	// Checkpoint k is the state after k * CHECKPOINT_INTERVAL records.
+	private final List<ReactorSnapshot> checkpoints = new ArrayList<ReactorSnapshot>();
+
+	/**
+	 * ReactorReplay constructor. Maps the segments of a recorded run and replays
+	 * it once to build its checkpoints.
+	 *
+	 * @param directory
+	 *            The directory of the segments.
+	 * @param prefix
+	 *            The start of the segment file names.
+	 * @throws IOException
+	 *             if the first segment is missing or a segment is not a
+	 *             telemetry segment.
+	 */
+	public ReactorReplay(final File directory, final String prefix) throws IOException {
+
+		long records = 0;
+		File file = TelemetryRecorder.segmentFile(directory, prefix, 0);
+
+		while (file.exists()) {
+			final MappedByteBuffer segment = map(file);
+			final int count = segment.getInt(TelemetryRecorder.HEADER_COUNT);
+
+			if (count == 0) {
+				break;
+			}
+			this.segments.add(segment);
+			records += count;
+			file = TelemetryRecorder.segmentFile(directory, prefix, this.segments.size());
+		}
+
+		if (this.segments.isEmpty()) {
+			throw new IOException("No recorded ticks for " + prefix + " in " + directory + ".");
+		}
+
+		final MappedByteBuffer first = this.segments.get(0);
+
+		this.records = records;
+		this.segmentRecords = first.getInt(TelemetryRecorder.HEADER_CAPACITY);
+		this.seed = first.getLong(TelemetryRecorder.HEADER_SEED);
+		this.tickSpeed = first.getInt(TelemetryRecorder.HEADER_TICK_SPEED);
+
+		final Reactor reactor = new Reactor(first.getDouble(TelemetryRecorder.HEADER_TEMPERATURE),
+				first.getInt(TelemetryRecorder.HEADER_RODS_HEIGHT), this.tickSpeed, this.seed);
+		this.checkpoints.add(reactor.getSnapshot());
+
+		for (long record = 0; record < records; record++) {
+			this.replayRecord(reactor, record);
+
+			if ((record + 1) % CHECKPOINT_INTERVAL == 0) {
+				this.checkpoints.add(reactor.getSnapshot());
+			}
+		}
+	}
+
+	/**
+	 * Returns the rod command applied during a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return the command, or null if the rods were not moved.
+	 */
+	public Reactor.Command getCommand(final long record) {
+		final byte command = this.segment(record).get(this.offset(record) + TelemetryRecorder.RECORD_COMMAND);
+
+		return command == TelemetryRecorder.NO_COMMAND ? null : COMMANDS[command];
+	}
+
+	/**
+	 * Returns the power of a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return power.
+	 */
+	public double getPower(final long record) {
+		return this.segment(record).getDouble(this.offset(record) + TelemetryRecorder.RECORD_POWER);
+	}
+
+	/**
+	 * Returns the number of recorded ticks.
+	 *
+	 * @return records.
+	 */
+	public long getRecords() {
+		return this.records;
+	}
+
+	/**
+	 * Returns the rod heights of a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return rodsHeight.
+	 */
+	public int getRodsHeight(final long record) {
+		return this.segment(record).getInt(this.offset(record) + TelemetryRecorder.RECORD_RODS_HEIGHT);
+	}
+
+	/**
+	 * Returns the status of a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return status.
+	 */
+	public Reactor.Status getStatus(final long record) {
+		return STATUSES[this.segment(record).get(this.offset(record) + TelemetryRecorder.RECORD_STATUS)];
+	}
+
+	/**
+	 * Returns the temperature of a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return temperature.
+	 */
+	public double getTemperature(final long record) {
+		return this.segment(record).getDouble(this.offset(record) + TelemetryRecorder.RECORD_TEMPERATURE);
+	}
+
+	/**
+	 * Returns the tick number of a recorded tick.
+	 *
+	 * @param record
+	 *            The number of the record.
+	 * @return tick.
+	 */
+	public int getTick(final long record) {
+		return this.segment(record).getInt(this.offset(record) + TelemetryRecorder.RECORD_TICK);
+	}
+
+	/**
+	 * Returns a reactor in the state reached after replaying the first records
+	 * of the run. Unless the run was ended with quit(), the reactor has then
+	 * ticked that many times. The reactor is new and can be ticked further, e.g.
+	 * with a ReactorController attached.
+	 *
+	 * @param records
+	 *            The number of records to replay.
+	 * @return the reactor.
+	 */
+	public Reactor seek(final long records) {
+		return this.replay(Math.min(Math.max(records, 0), this.records), false).reactor;
+	}
+
+	/**
+	 * Replays the whole run and checks every tick against its record.
+	 *
+	 * @return the number of the first record that the replay does not match, or
+	 *         -1 if every record matches.
+	 */
+	public long verify() {
+		return this.replay(this.records, true).mismatch;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * The outcome of a replay.
+	 */
+	private static class Replayed {
+		private final Reactor reactor;
+		private final long mismatch;
+
+		private Replayed(final Reactor reactor, final long mismatch) {
+			this.reactor = reactor;
+			this.mismatch = mismatch;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Replays records from the nearest checkpoint, optionally checking each
+	 * record.
+	 */
+	private Replayed replay(final long records, final boolean check) {
+
+		final int checkpoint = check ? 0 : (int) (records / CHECKPOINT_INTERVAL);
+		// Only runs of reactors with the default config are recorded.
+		final Reactor reactor = new Reactor(this.checkpoints.get(checkpoint), this.tickSpeed, this.seed,
+				ReactorConfig.DEFAULT);
+
+		for (long record = (long) checkpoint * CHECKPOINT_INTERVAL; record < records; record++) {
+			this.replayRecord(reactor, record);
+
+			if (check && !this.matches(reactor, record)) {
+				return new Replayed(reactor, record);
+			}
+		}
+
+		return new Replayed(reactor, -1);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Queues the commands recorded for a tick, then ticks.
+	 */
+	private void replayRecord(final Reactor reactor, final long record) {
+		final Reactor.Command command = this.getCommand(record);
+
+		if (command == Reactor.Command.DROP) {
+			reactor.dropRods();
+		} else if (command == Reactor.Command.LOWER) {
+			reactor.lowerRods();
+		} else if (command == Reactor.Command.RAISE) {
+			reactor.raiseRods();
+		}
+		if (this.getStatus(record) == Reactor.Status.FINISHED) {
+			reactor.quit();
+		}
+		reactor.tick();
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Determines whether the reactor is in the state of a record.
+	 */
+	private boolean matches(final Reactor reactor, final long record) {
+		return reactor.getTicks() == this.getTick(record)
+				&& Double.doubleToLongBits(reactor.getTemperature()) == Double
+						.doubleToLongBits(this.getTemperature(record))
+				&& Double.doubleToLongBits(reactor.getPower()) == Double.doubleToLongBits(this.getPower(record))
+				&& reactor.getRodsHeight() == this.getRodsHeight(record)
+				&& reactor.getStatus() == this.getStatus(record);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the offset of a record in its segment.
+	 */
+	private int offset(final long record) {
+		return TelemetryRecorder.HEADER_SIZE + (int) (record % this.segmentRecords) * TelemetryRecorder.RECORD_SIZE;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the segment holding a record.
+	 */
+	private MappedByteBuffer segment(final long record) {
+		return this.segments.get((int) (record / this.segmentRecords));
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Maps a segment file for reading and checks its header.
+	 */
+	private static MappedByteBuffer map(final File file) throws IOException {
+		final MappedByteBuffer buffer;
+
+		try (RandomAccessFile segment = new RandomAccessFile(file, "r")) {
+			buffer = segment.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, segment.length());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.capacity() < TelemetryRecorder.HEADER_SIZE
+				|| buffer.getInt(TelemetryRecorder.HEADER_MAGIC) != TelemetryRecorder.MAGIC
+				|| buffer.getInt(TelemetryRecorder.HEADER_VERSION) != TelemetryRecorder.VERSION) {
+			throw new IOException(file + " is not a telemetry segment.");
+		}
+
+		return buffer;
+	}
+
+}
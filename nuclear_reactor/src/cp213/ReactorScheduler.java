@@ -0,0 +1,211 @@
+package cp213;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticks many reactors from a small, shared pool of threads instead of giving
+ * each reactor a thread that sleeps between ticks. Each reactor is ticked at a
+ * fixed rate of one tick per tickSpeed milliseconds measured from the time it
+ * was scheduled, so time spent ticking and notifying listeners does not push
+ * later ticks back. How late each tick fired is kept in its ScheduledReactor,
+ * and recorded as the sleep drift of the reactor's own metrics, which are
+ * registered while it is scheduled.
+ * A SimulationClock started on the scheduler ticks its reactor on the same
+ * threads, at the speed it is set to.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorScheduler {
+
+	// ---------------------------------------------------------------
+	/**
+	 * A reactor being ticked by the scheduler. Stops itself once the reactor is
+	 * no longer operating.
+	 */
+	public class ScheduledReactor implements Runnable {
+
+		private final Reactor reactor;
+		private final long periodNanos;
+		private final ReactorMetrics metrics;
+		private long firstTickNanos;
+		private long fired = 0;
+		private volatile long lastLateness = 0;
+		private volatile long maxLateness = 0;
+		private volatile ScheduledFuture<?> future = null;
+
+		private ScheduledReactor(final Reactor reactor) {
+			this.reactor = reactor;
+			this.periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, reactor.getTickSpeed()));
+			this.metrics = ReactorMetrics.attach(reactor, 1);
+		}
+
+		/**
+		 * Stops ticking the reactor and unregisters its metrics.
+		 */
+		public void cancel() {
+			final ScheduledFuture<?> future = this.future;
+
+			if (future != null) {
+				future.cancel(false);
+			}
+			ReactorScheduler.this.scheduled.remove(this);
+			this.metrics.unregister();
+		}
+
+		/**
+		 * Returns how many nanoseconds after its scheduled time the latest tick
+		 * started.
+		 *
+		 * @return lateness in nanoseconds.
+		 */
+		public long getLastLateness() {
+			return this.lastLateness;
+		}
+
+		/**
+		 * Returns the largest lateness of any tick so far.
+		 *
+		 * @return lateness in nanoseconds.
+		 */
+		public long getMaxLateness() {
+			return this.maxLateness;
+		}
+
+		/**
+		 * Returns the reactor being ticked.
+		 *
+		 * @return reactor.
+		 */
+		public Reactor getReactor() {
+			return this.reactor;
+		}
+
+		/**
+		 * Returns whether the reactor is still being ticked.
+		 *
+		 * @return true if ticks are still scheduled, false if not.
+		 */
+		public boolean isActive() {
+			final ScheduledFuture<?> future = this.future;
+
+			return future != null && !future.isDone();
+		}
+
+		@Override
+		public void run() {
+
+			if (this.reactor.getStatus() != Reactor.Status.OPERATING) {
+				this.cancel();
+				return;
+			}
+
+			// Executions of one fixed-rate task never overlap, so fired needs no
+			// synchronization.
+			this.fired++;
+			final long lateness = System.nanoTime() - (this.firstTickNanos + (this.fired - 1) * this.periodNanos);
+			this.lastLateness = lateness;
+			if (lateness > this.maxLateness) {
+				this.maxLateness = lateness;
+			}
+			this.metrics.record(ReactorMetrics.Stage.SLEEP_DRIFT, lateness);
+
+			this.reactor.tick();
+
+			if (this.reactor.getStatus() != Reactor.Status.OPERATING) {
+				this.cancel();
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorScheduler class.
+	 */
+	private final ScheduledThreadPoolExecutor executor;
+	// The reactors still scheduled, whose metrics are unregistered on shutdown.
+	private final Set<ScheduledReactor> scheduled = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * ReactorScheduler constructor. Uses one thread per available processor.
+	 */
+	public ReactorScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * ReactorScheduler constructor.
+	 *
+	 * @param threads
+	 *            The number of threads ticking reactors.
+	 */
+	public ReactorScheduler(final int threads) {
+		final AtomicInteger count = new AtomicInteger();
+		final ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, "reactor-scheduler-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+
+		this.executor = new ScheduledThreadPoolExecutor(threads, factory);
+		this.executor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Starts ticking a reactor every tickSpeed milliseconds. The first tick is one
+	 * period from now.
+	 *
+	 * @param reactor
+	 *            The reactor to tick.
+	 * @return the handle of the scheduled reactor.
+	 */
+	public ScheduledReactor schedule(final Reactor reactor) {
+		final ScheduledReactor scheduled = new ScheduledReactor(reactor);
+
+		this.scheduled.add(scheduled);
+		// Submitting the task publishes firstTickNanos to the ticking thread.
+		scheduled.firstTickNanos = System.nanoTime() + scheduled.periodNanos;
+		scheduled.future = this.executor.scheduleAtFixedRate(scheduled, scheduled.periodNanos, scheduled.periodNanos,
+				TimeUnit.NANOSECONDS);
+
+		// The reactor may have stopped before the future was known.
+		if (reactor.getStatus() != Reactor.Status.OPERATING) {
+			scheduled.cancel();
+		}
+
+		return scheduled;
+	}
+
+	/**
+	 * Runs a task once on the scheduler's threads after a delay. A
+	 * SimulationClock ticks this way, choosing the delay of every tick itself.
+	 *
+	 * @param task
+	 *            The task to run.
+	 * @param delayNanos
+	 *            The nanoseconds to wait first.
+	 * @return the future of the task.
+	 */
+	ScheduledFuture<?> schedule(final Runnable task, final long delayNanos) {
+		return this.executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops ticking every reactor and releases the threads.
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+
+		for (ScheduledReactor scheduled : this.scheduled) {
+			scheduled.cancel();
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package cp213;
+
+/**
+ * The readings of a reactor at the end of one tick, as returned by
+ * Reactor.getSnapshot(). Snapshots are immutable, so they can be handed from
+ * the thread ticking the reactor to the views.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorSnapshot {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorSnapshot class.
+	 */
+	private final int ticks;
+	private final double temperature;
+	private final double avgTemperature;
+	private final double power;
+	private final double avgPower;
+	private final int rodsHeight;
+	private final boolean rodsDropped;
+	private final Reactor.Status status;
+
+	/**
+	 * ReactorSnapshot constructor.
+	 *
+	 * @param ticks
+	 *            The number of ticks since the beginning of the simulation.
+	 * @param temperature
+	 *            The reactor's temperature.
+	 * @param avgTemperature
+	 *            The average temperature of the reactor.
+	 * @param power
+	 *            The reactor's power level.
+	 * @param avgPower
+	 *            The average power produced by the reactor.
+	 * @param rodsHeight
+	 *            The reactor's rod heights.
+	 * @param rodsDropped
+	 *            Whether or not the reactor's rods have been dropped.
+	 * @param status
+	 *            The reactor's status.
+	 */
+	ReactorSnapshot(final int ticks, final double temperature, final double avgTemperature, final double power,
+			final double avgPower, final int rodsHeight, final boolean rodsDropped, final Reactor.Status status) {
+		this.ticks = ticks;
+		this.temperature = temperature;
+		this.avgTemperature = avgTemperature;
+		this.power = power;
+		this.avgPower = avgPower;
+		this.rodsHeight = rodsHeight;
+		this.rodsDropped = rodsDropped;
+		this.status = status;
+	}
+
+	/**
+	 * Returns the average power produced by the reactor.
+	 *
+	 * @return average power.
+	 */
+	public double getAveragePower() {
+		return this.avgPower;
+	}
+
+	/**
+	 * Returns the average temperature of the reactor.
+	 *
+	 * @return average temperature.
+	 */
+	public double getAverageTemperature() {
+		return this.avgTemperature;
+	}
+
+	/**
+	 * Returns the reactor's power level.
+	 *
+	 * @return power.
+	 */
+	public double getPower() {
+		return this.power;
+	}
+
+	/**
+	 * Returns the reactor's rod heights.
+	 *
+	 * @return rodsHeight.
+	 */
+	public int getRodsHeight() {
+		return this.rodsHeight;
+	}
+
+	/**
+	 * Returns whether the reactor's rods have been dropped.
+	 *
+	 * @return true if dropped, false if not.
+	 */
+	public boolean isRodsDropped() {
+		return this.rodsDropped;
+	}
+
+	/**
+	 * Returns the reactor's status.
+	 *
+	 * @return status.
+	 */
+	public Reactor.Status getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Returns the reactor's temperature.
+	 *
+	 * @return temperature.
+	 */
+	public double getTemperature() {
+		return this.temperature;
+	}
+
+	/**
+	 * Returns the number of ticks since the beginning of the simulation.
+	 *
+	 * @return ticks.
+	 */
+	public int getTicks() {
+		return this.ticks;
+	}
+
+}
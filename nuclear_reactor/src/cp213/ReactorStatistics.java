@@ -0,0 +1,105 @@
+package cp213;
+
+/**
+ * The distributions of a reactor's temperature, power and tick duration, or of
+ * those of many reactors merged: one StreamingStatistics each, in memory that
+ * does not grow with the number of ticks. A Reactor, ReactorFleet or Plant
+ * given statistics records in them on every tick. Temperature and power are
+ * recorded for the ticks after which a reactor is still operating, the ticks
+ * its averages cover.
+ *
+ * Statistics are not thread-safe. They are read while nothing records in
+ * them, e.g. between steps, or merged from statistics of their own per thread.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class ReactorStatistics {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of ReactorStatistics class.
+	 */
+	private final StreamingStatistics temperature = new StreamingStatistics();
+	private final StreamingStatistics power = new StreamingStatistics();
+	private final StreamingStatistics tickNanos = new StreamingStatistics();
+
+	/**
+	 * Returns the statistics of the power.
+	 *
+	 * @return power statistics.
+	 */
+	public StreamingStatistics getPower() {
+		return this.power;
+	}
+
+	/**
+	 * Returns the statistics of the temperature.
+	 *
+	 * @return temperature statistics.
+	 */
+	public StreamingStatistics getTemperature() {
+		return this.temperature;
+	}
+
+	/**
+	 * Returns the statistics of the tick durations, in nanoseconds.
+	 *
+	 * @return tick duration statistics.
+	 */
+	public StreamingStatistics getTickNanos() {
+		return this.tickNanos;
+	}
+
+	/**
+	 * Adds the statistics of other reactors to these.
+	 *
+	 * @param other
+	 *            The statistics to merge into these.
+	 */
+	public void merge(final ReactorStatistics other) {
+		this.temperature.merge(other.temperature);
+		this.power.merge(other.power);
+		this.tickNanos.merge(other.tickNanos);
+	}
+
+	/**
+	 * Records the state after a tick that left a reactor operating.
+	 *
+	 * @param temperature
+	 *            The temperature after the tick.
+	 * @param power
+	 *            The power after the tick.
+	 */
+	public void record(final double temperature, final double power) {
+		this.temperature.record(temperature);
+		this.power.record(power);
+	}
+
+	/**
+	 * Records the duration of a tick.
+	 *
+	 * @param nanos
+	 *            The duration in nanoseconds.
+	 */
+	public void recordTick(final long nanos) {
+		this.tickNanos.record(nanos);
+	}
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	public void reset() {
+		this.temperature.reset();
+		this.power.reset();
+		this.tickNanos.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("temperature: %s%npower: %s%ntick ns: %s", this.temperature, this.power,
+				this.tickNanos);
+	}
+
+}
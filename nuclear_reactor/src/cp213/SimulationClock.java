@@ -0,0 +1,321 @@
+package cp213;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a reactor on simulation time rather than wall time. The clock can be
+ * paused and stepped one tick at a time, run at a multiple of the reactor's
+ * tick speed, or run unthrottled with ticks back to back. Views listen to the
+ * clock rather than to the reactor: it announces a frame at most FRAME_RATE
+ * times a second, after a single step, and when the reactor stops, so fast runs
+ * are not slowed down by repainting every tick.
+ *
+ * The clock ticks on the threads of a ReactorScheduler, so any number of
+ * clocks share its threads. Each tick schedules the next one, after a delay
+ * that follows the speed without drifting; an unthrottled clock gives the
+ * thread up after every frame's worth of ticks. While it ticks, the reactor
+ * records its timings in metrics of its own, registered with the platform
+ * MBean server.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class SimulationClock {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Frames announced per second at most.
+	public static final int FRAME_RATE = 60;
+	// Bounds of the speed multiplier.
+	public static final double MIN_SPEED = 0.1;
+	public static final double MAX_SPEED = 1000;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / FRAME_RATE;
+	// How long a paused clock waits before checking for commands sent to the reactor.
+	private static final long PAUSE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	// ---------------------------------------------------------------
+	/**
+	 * Allows views to listen for frames.
+	 */
+	private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of SimulationClock class. Only one tick of the clock is
+	 * scheduled or running at a time: the one in future, which a paused or
+	 * stepped clock replaces to act at once. nextTick and lastFrame are only used
+	 * by that tick.
+	 */
+	private final Reactor model;
+	private final Runnable task = this::advance;
+	private volatile boolean paused = false;
+	private volatile boolean unthrottled = false;
+	private volatile double speed = 1;
+	private long nextTick = 0;
+	private long lastFrame = 0;
+	private ReactorMetrics metrics = null;
+	// Guarded by this: the scheduler, the pending or running tick, whether it
+	// should be followed at once, and the single steps requested while paused.
+	private ReactorScheduler scheduler = null;
+	private ScheduledFuture<?> future = null;
+	private boolean woken = false;
+	private int steps = 0;
+
+	/**
+	 * SimulationClock constructor.
+	 *
+	 * @param model
+	 *            The reactor to drive.
+	 */
+	public SimulationClock(final Reactor model) {
+		this.model = model;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Attaches frame listeners to the clock.
+	 *
+	 * @param listener
+	 *            The listener to attach to the clock.
+	 */
+	public void addPropertyChangeListener(final PropertyChangeListener listener) {
+		this.pcs.addPropertyChangeListener(listener);
+	}
+
+	/**
+	 * Returns the reactor driven by the clock.
+	 *
+	 * @return model.
+	 */
+	public Reactor getModel() {
+		return this.model;
+	}
+
+	/**
+	 * Returns the speed multiplier.
+	 *
+	 * @return speed.
+	 */
+	public double getSpeed() {
+		return this.speed;
+	}
+
+	/**
+	 * Returns whether the clock is paused.
+	 *
+	 * @return true if paused, false if not.
+	 */
+	public boolean isPaused() {
+		return this.paused;
+	}
+
+	/**
+	 * Returns whether the clock ticks without waiting.
+	 *
+	 * @return true if unthrottled, false if not.
+	 */
+	public boolean isUnthrottled() {
+		return this.unthrottled;
+	}
+
+	/**
+	 * Pauses or resumes the clock.
+	 *
+	 * @param paused
+	 *            The new value for the paused attribute.
+	 */
+	public synchronized void setPaused(final boolean paused) {
+		this.paused = paused;
+		this.steps = 0;
+		this.wake();
+	}
+
+	/**
+	 * Sets the speed multiplier. A speed of 2 ticks twice every tickSpeed
+	 * milliseconds. The speed is kept between MIN_SPEED and MAX_SPEED.
+	 *
+	 * @param speed
+	 *            The new speed multiplier.
+	 */
+	public void setSpeed(final double speed) {
+		this.speed = Math.min(Math.max(speed, MIN_SPEED), MAX_SPEED);
+	}
+
+	/**
+	 * Sets whether the clock ticks back to back, ignoring the speed.
+	 *
+	 * @param unthrottled
+	 *            The new value for the unthrottled attribute.
+	 */
+	public void setUnthrottled(final boolean unthrottled) {
+		this.unthrottled = unthrottled;
+	}
+
+	/**
+	 * Advances a paused clock by one tick.
+	 */
+	public synchronized void step() {
+		if (this.paused) {
+			this.steps++;
+			this.wake();
+		}
+	}
+
+	/**
+	 * Starts ticking the reactor on the threads of a scheduler, one tick period
+	 * from now, until it stops operating.
+	 *
+	 * @param scheduler
+	 *            The scheduler whose threads tick the reactor.
+	 * @throws IllegalStateException
+	 *             if the clock was already started.
+	 */
+	public synchronized void start(final ReactorScheduler scheduler) {
+
+		if (this.scheduler != null) {
+			throw new IllegalStateException("The clock was already started.");
+		}
+
+		// An unthrottled clock ticks without pause, so only a sample is timed.
+		this.metrics = ReactorMetrics.attach(this.model, ReactorMetrics.SAMPLE_INTERVAL);
+
+		final long now = System.nanoTime();
+		this.scheduler = scheduler;
+		this.nextTick = now;
+		this.lastFrame = now - FRAME_NANOS;
+		this.future = scheduler.schedule(this.task, this.period());
+		this.nextTick += this.period();
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Makes the tick pending act at once, or the tick running be followed at
+	 * once. Must be called holding this.
+	 */
+	private void wake() {
+
+		if (this.future == null) {
+			return;
+		}
+		if (this.future.cancel(false)) {
+			this.future = this.scheduler.schedule(this.task, 0);
+		} else {
+			this.woken = true;
+		}
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the nanoseconds between ticks at the current speed.
+	 */
+	private long period() {
+		return (long) (TimeUnit.MILLISECONDS.toNanos(this.model.getTickSpeed()) / this.speed);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Does one tick of the clock on a scheduler thread: one tick of the reactor,
+	 * a frame's worth if unthrottled, or a check for commands if paused. Then
+	 * schedules the next, unless the reactor has stopped.
+	 */
+	private void advance() {
+		final Reactor model = this.model;
+		boolean stepping = false;
+		boolean idle = false;
+
+		synchronized (this) {
+			this.woken = false;
+
+			if (this.paused && this.steps > 0) {
+				this.steps--;
+				stepping = true;
+			} else if (this.paused) {
+				idle = true;
+			}
+		}
+
+		final boolean throttled = !stepping && !idle && !this.unthrottled;
+		long now = System.nanoTime();
+
+		if (idle) {
+			// Act on rod commands and quit while paused.
+			if (model.applyCommands()) {
+				this.pcs.firePropertyChange("frame", null, null);
+			}
+			this.nextTick = now + this.period();
+		} else if (throttled && this.nextTick - now > 0) {
+			// Woken before the tick is due, e.g. on resuming: wait for it.
+		} else if (!this.unthrottled || stepping) {
+			if (throttled) {
+				this.metrics.record(ReactorMetrics.Stage.SLEEP_DRIFT, now - this.nextTick);
+			}
+			if (model.getStatus() == Reactor.Status.OPERATING) {
+				model.tick();
+			}
+			if (throttled) {
+				this.nextTick += this.period();
+			}
+		} else {
+			// Tick back to back for up to a frame, then let other clocks have the thread.
+			final long end = now + FRAME_NANOS;
+
+			while (model.getStatus() == Reactor.Status.OPERATING) {
+				model.tick();
+
+				if (System.nanoTime() - end >= 0) {
+					break;
+				}
+			}
+		}
+
+		now = System.nanoTime();
+
+		if (!idle && (stepping || now - this.lastFrame >= FRAME_NANOS)) {
+			this.lastFrame = now;
+			this.pcs.firePropertyChange("frame", null, null);
+		}
+
+		if (model.getStatus() != Reactor.Status.OPERATING) {
+			// Always show the final state.
+			this.pcs.firePropertyChange("frame", null, null);
+			this.metrics.unregister();
+			return;
+		}
+
+		long delay;
+
+		if (idle) {
+			delay = PAUSE_POLL_NANOS;
+		} else if (throttled) {
+			delay = this.nextTick - now;
+
+			if (delay < -FRAME_NANOS) {
+				// Do not race to catch up on ticks missed by more than a frame.
+				this.nextTick = now;
+			}
+		} else {
+			// Stepped or unthrottled; a throttled clock starts again a period from now.
+			this.nextTick = now + this.period();
+			delay = 0;
+		}
+
+		synchronized (this) {
+			if (this.woken) {
+				delay = 0;
+				this.woken = false;
+			}
+			this.future = this.scheduler.schedule(this.task, Math.max(delay, 0));
+		}
+
+	}
+
+}
@@ -1,11 +1,24 @@
 package cp213;
 
+import java.awt.BorderLayout;
 import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.Timer;
 
 /**
- * A class to act as a frame for ControlPanel, StatusPanel, and SimulationPanel.
+ * A class to act as a frame for ControlPanel, StatusPanel, and SimulationPanel,
+ * with a ChartPanel of the latest ticks underneath.
+ * The model is never read from the event dispatch thread: the thread ticking
+ * the model leaves a snapshot of its latest readings, and a Swing timer shows
+ * the newest snapshot at most once per frame. Rendering therefore does not slow
+ * down the simulation, and a burst of ticks costs a single repaint.
  *
  * @author Nathaniel Carr
  * @version 2017-12-03
@@ -14,6 +27,48 @@ import javax.swing.JFrame;
 @SuppressWarnings("serial")
 public class SimulationView extends JFrame {
 
+	// -------------------------------------------------------------------------------
+	/**
+	 * An inner class the listens for changes in the model, or for frames of the
+	 * clock, and leaves a snapshot of the model for the next repaint. Runs on the
+	 * thread ticking the model.
+	 */
+	private class SnapshotListener implements PropertyChangeListener {
+
+		@Override
+		public void propertyChange(final PropertyChangeEvent arg0) {
+			SimulationView.this.pending.set(SimulationView.this.model.getSnapshot());
+		}
+	}
+
+	// -------------------------------------------------------------------------------
+	/**
+	 * An inner class that updates the panels from the newest snapshot, if there
+	 * is one. Runs on the event dispatch thread.
+	 */
+	private class RepaintListener implements ActionListener {
+
+		@Override
+		public void actionPerformed(final ActionEvent e) {
+			final ReactorSnapshot snapshot = SimulationView.this.pending.getAndSet(null);
+
+			if (snapshot != null) {
+				SimulationView.this.refresh(snapshot);
+
+				// Nothing changes once the reactor stops.
+				if (snapshot.getStatus() != Reactor.Status.OPERATING) {
+					SimulationView.this.timer.stop();
+				}
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Number of ticks kept for the chart; one less than a power of two, so the
+	// history's buffers are no larger than needed.
+	private static final int HISTORY_CAPACITY = 4095;
+
 	// ---------------------------------------------------------------
 	/**
 	 * Private properties of StatusPanel class. The panels displayed in this JFrame.
@@ -21,39 +76,116 @@ public class SimulationView extends JFrame {
 	private ControlPanel controlPanel;
 	private StatusPanel statusPanel;
 	private SummaryPanel summaryPanel;
+	private ClockPanel clockPanel = null;
+	private ChartPanel chartPanel;
+
+	// The model shown by the panels.
+	private final Reactor model;
+	// The newest snapshot not yet shown.
+	private final AtomicReference<ReactorSnapshot> pending = new AtomicReference<ReactorSnapshot>();
+	// Repaints the panels at most FRAME_RATE times a second.
+	private final Timer timer = new Timer(1000 / SimulationClock.FRAME_RATE, new RepaintListener());
 
 	/**
-	 * StatusPanel constructor.
+	 * StatusPanel constructor. A snapshot of the model is taken after every tick.
 	 *
 	 * @param model
 	 *            The reactor to pass to the JPanels.
 	 * @param automatic
 	 *            Whether or not the ReactorController is active. Necessary for
 	 *            controlPanel.
-	 * 
+	 *
 	 */
 	SimulationView(final Reactor model, final ReactorController rc) {
 
 		this.setTitle("Reactor Simulation");
 
+		this.model = model;
 		this.controlPanel = new ControlPanel(model, rc);
 		this.statusPanel = new StatusPanel(model);
 		this.summaryPanel = new SummaryPanel(model);
+		this.chartPanel = new ChartPanel(this.history(model));
 
 		this.layoutView();
+
+		model.addPropertyChangeListener(new SnapshotListener());
+		this.timer.start();
+	}
+
+	/**
+	 * SimulationView constructor. The panels are updated on every frame of the
+	 * clock, and the clock can be controlled from the view.
+	 *
+	 * @param model
+	 *            The reactor to pass to the JPanels.
+	 * @param rc
+	 *            The ReactorController. Necessary for controlPanel.
+	 * @param clock
+	 *            The clock driving the model.
+	 */
+	SimulationView(final Reactor model, final ReactorController rc, final SimulationClock clock) {
+
+		this.setTitle("Reactor Simulation");
+
+		this.model = model;
+		this.controlPanel = new ControlPanel(model, rc);
+		this.statusPanel = new StatusPanel(model);
+		this.summaryPanel = new SummaryPanel(model);
+		this.clockPanel = new ClockPanel(clock);
+		this.chartPanel = new ChartPanel(this.history(model));
+
+		this.layoutView();
+
+		clock.addPropertyChangeListener(new SnapshotListener());
+		this.timer.start();
 	}
 
 	// ---------------------------------------------------------------
 	/**
-	 * Uses the GridLayout to place the JPanels.
+	 * Creates the history charted by chartPanel and attaches it to the model.
+	 */
+	private TickHistory history(final Reactor model) {
+		final TickHistory history = new TickHistory(HISTORY_CAPACITY);
+
+		model.addTickListener(history);
+		return history;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Uses the GridLayout to place the JPanels, with the chart and the clock
+	 * controls (if any) underneath.
 	 */
 	private void layoutView() {
 
-		this.setLayout(new GridLayout(1, 3));
-		this.add(this.controlPanel);
-		this.add(this.statusPanel);
-		this.add(this.summaryPanel);
+		JPanel panels = new JPanel(new GridLayout(1, 3));
+		panels.add(this.controlPanel);
+		panels.add(this.statusPanel);
+		panels.add(this.summaryPanel);
+
+		this.setLayout(new BorderLayout());
+		this.add(panels, BorderLayout.NORTH);
+		this.add(this.chartPanel, BorderLayout.CENTER);
+
+		if (this.clockPanel != null) {
+			this.add(this.clockPanel, BorderLayout.SOUTH);
+		}
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Updates every panel from a snapshot of the model.
+	 */
+	private void refresh(final ReactorSnapshot snapshot) {
+		this.controlPanel.refresh(snapshot);
+		this.statusPanel.refresh(snapshot);
+		this.summaryPanel.refresh(snapshot);
+		this.chartPanel.refresh();
 
+		if (this.clockPanel != null) {
+			this.clockPanel.refresh(snapshot);
+		}
 	}
 
 }
@@ -0,0 +1,250 @@
+package cp213;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * The outcome of a StartRegionSweep: for every start on the grid of initial
+ * temperatures and rod heights, how the run ended, how many ticks it took, and
+ * its average power. A start is safe if its run was still operating at the
+ * tick cap, i.e. it ended FINISHED.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class StartRegion {
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	private static final Reactor.Status[] STATUSES = Reactor.Status.values();
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of StartRegion class. Cells are stored rod height by rod
+	 * height, each holding every temperature in order.
+	 */
+	private final int stepsPerDegree;
+	private final int maxTicks;
+	private final ReactorConfig config;
+	private final int temperatures;
+	private final byte[] status;
+	private final int[] ticks;
+	private final double[] averagePower;
+
+	/**
+	 * StartRegion constructor.
+	 *
+	 * @param stepsPerDegree
+	 *            The number of temperatures per degree.
+	 * @param maxTicks
+	 *            The tick cap of the runs.
+	 * @param config
+	 *            The physics parameters of the reactors.
+	 */
+	StartRegion(final int stepsPerDegree, final int maxTicks, final ReactorConfig config) {
+		this.stepsPerDegree = stepsPerDegree;
+		this.maxTicks = maxTicks;
+		this.config = config;
+		this.temperatures = (int) Math.round((config.getMaxTemp() - config.getMinTemp()) * stepsPerDegree) + 1;
+
+		final int cells = this.temperatures * (config.getRodLength() + 1);
+		this.status = new byte[cells];
+		this.ticks = new int[cells];
+		this.averagePower = new double[cells];
+	}
+
+	/**
+	 * Records the outcome of a cell.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @param status
+	 *            The final status of the reactor.
+	 * @param ticks
+	 *            The number of ticks the reactor ran for.
+	 * @param averagePower
+	 *            The average power of the reactor over the run.
+	 */
+	void set(final int cell, final Reactor.Status status, final int ticks, final double averagePower) {
+		this.status[cell] = (byte) status.ordinal();
+		this.ticks[cell] = ticks;
+		this.averagePower[cell] = averagePower;
+	}
+
+	/**
+	 * Returns the average power of the run of a cell.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return average power.
+	 */
+	public double getAveragePower(final int cell) {
+		return this.averagePower[cell];
+	}
+
+	/**
+	 * Returns the cell of a start.
+	 *
+	 * @param temperatureIndex
+	 *            The number of the initial temperature, from 0 for minTemp.
+	 * @param rodsHeight
+	 *            The initial rod heights.
+	 * @return the cell.
+	 */
+	public int getCell(final int temperatureIndex, final int rodsHeight) {
+		return rodsHeight * this.temperatures + temperatureIndex;
+	}
+
+	/**
+	 * Returns the number of cells.
+	 *
+	 * @return cells.
+	 */
+	public int getCells() {
+		return this.status.length;
+	}
+
+	/**
+	 * Returns the physics parameters of the reactors.
+	 *
+	 * @return config.
+	 */
+	public ReactorConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Returns the highest safe initial temperature for an initial rod height.
+	 *
+	 * @param rodsHeight
+	 *            The initial rod heights.
+	 * @return the temperature, or NaN if no start with these rods is safe.
+	 */
+	public double getMaxSafeTemperature(final int rodsHeight) {
+
+		for (int t = this.temperatures - 1; t >= 0; t--) {
+			if (this.isSafe(this.getCell(t, rodsHeight))) {
+				return this.getTemperature(this.getCell(t, rodsHeight));
+			}
+		}
+
+		return Double.NaN;
+	}
+
+	/**
+	 * Returns the tick cap of the runs.
+	 *
+	 * @return maxTicks.
+	 */
+	public int getMaxTicks() {
+		return this.maxTicks;
+	}
+
+	/**
+	 * Returns the initial rod heights of a cell.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return rodsHeight.
+	 */
+	public int getRodsHeight(final int cell) {
+		return cell / this.temperatures;
+	}
+
+	/**
+	 * Returns the final status of the run of a cell.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return status.
+	 */
+	public Reactor.Status getStatus(final int cell) {
+		return STATUSES[this.status[cell]];
+	}
+
+	/**
+	 * Returns the initial temperature of a cell.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return temperature.
+	 */
+	public double getTemperature(final int cell) {
+		// Divide rather than multiply by the step, so whole tenths come out exact.
+		return (this.config.getMinTemp() * this.stepsPerDegree + cell % this.temperatures) / this.stepsPerDegree;
+	}
+
+	/**
+	 * Returns the number of initial temperatures per rod height.
+	 *
+	 * @return temperatures.
+	 */
+	public int getTemperatures() {
+		return this.temperatures;
+	}
+
+	/**
+	 * Returns the number of ticks the run of a cell took.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return ticks.
+	 */
+	public int getTicks(final int cell) {
+		return this.ticks[cell];
+	}
+
+	/**
+	 * Returns whether the run of a cell was still operating at the tick cap.
+	 *
+	 * @param cell
+	 *            The cell.
+	 * @return true if safe, false if not.
+	 */
+	public boolean isSafe(final int cell) {
+		return this.status[cell] == Reactor.Status.FINISHED.ordinal();
+	}
+
+	/**
+	 * Writes every cell as a line of comma-separated values: initial
+	 * temperature, initial rod heights, final status, ticks and average power.
+	 *
+	 * @param out
+	 *            The writer to write to.
+	 * @throws IOException
+	 *             if writing fails.
+	 */
+	public void writeCells(final Writer out) throws IOException {
+
+		out.write(String.format("temperature,rodsHeight,status,ticks,averagePower%n"));
+		for (int cell = 0; cell < this.getCells(); cell++) {
+			out.write(String.format(Locale.ROOT, "%.4f,%d,%s,%d,%.5f%n", this.getTemperature(cell),
+					this.getRodsHeight(cell), this.getStatus(cell).name(), this.ticks[cell], this.averagePower[cell]));
+		}
+
+	}
+
+	/**
+	 * Writes the highest safe initial temperature of every rod height as a line
+	 * of comma-separated values, with an empty temperature where none is safe.
+	 *
+	 * @param out
+	 *            The writer to write to.
+	 * @throws IOException
+	 *             if writing fails.
+	 */
+	public void writeLimits(final Writer out) throws IOException {
+
+		out.write(String.format("rodsHeight,maxSafeTemperature%n"));
+		for (int rodsHeight = 0; rodsHeight <= this.config.getRodLength(); rodsHeight++) {
+			final double limit = this.getMaxSafeTemperature(rodsHeight);
+
+			out.write(String.format("%d,%s%n", rodsHeight,
+					Double.isNaN(limit) ? "" : String.format(Locale.ROOT, "%.4f", limit)));
+		}
+
+	}
+
+}
@@ -0,0 +1,175 @@
+package cp213;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a controlled reactor from every start on a grid of initial temperatures
+ * and rod heights and records how each run ends. Temperatures go from the
+ * config's minTemp to maxTemp in steps of 1 / stepsPerDegree degrees, and rod
+ * heights from 0 to its rodLength. The runs are split across a fork-join pool like a
+ * BatchSimulation, and gathered into a StartRegion.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class StartRegionSweep {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Splits a range of cells in half until it is small enough to run on one
+	 * thread. Each half gets its own generator for reactor seeds.
+	 */
+	@SuppressWarnings("serial")
+	private class SweepTask extends RecursiveAction {
+
+		private final StartRegion region;
+		private final int from;
+		private final int to;
+		private final SplittableRandom seeds;
+
+		SweepTask(final StartRegion region, final int from, final int to, final SplittableRandom seeds) {
+			this.region = region;
+			this.from = from;
+			this.to = to;
+			this.seeds = seeds;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (this.to - this.from <= THRESHOLD) {
+				for (int cell = this.from; cell < this.to; cell++) {
+					StartRegionSweep.this.runOne(this.region, cell, this.seeds.nextLong());
+				}
+				return;
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+			SweepTask left = new SweepTask(this.region, this.from, middle, this.seeds.split());
+			SweepTask right = new SweepTask(this.region, middle, this.to, this.seeds);
+
+			invokeAll(left, right);
+		}
+	}
+
+	// ---------------------------------------------------------------
+	// Number of cells below which a task is no longer split.
+	private static final int THRESHOLD = 256;
+	// Default temperature steps per degree.
+	public static final int DEFAULT_STEPS_PER_DEGREE = 10;
+	// Default cap on the ticks of a single run. A controlled run still operating
+	// after this many ticks counts as safe.
+	public static final int DEFAULT_MAX_TICKS = 1000;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of StartRegionSweep class.
+	 */
+	private final int stepsPerDegree;
+	private final ReactorController.Mode mode;
+	private final int maxTicks;
+	private final long seed;
+	private final ReactorConfig config;
+
+	/**
+	 * StartRegionSweep constructor with the default resolution and tick cap and
+	 * THRESHOLD controllers.
+	 *
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 */
+	public StartRegionSweep(final long seed) {
+		this(DEFAULT_STEPS_PER_DEGREE, ReactorController.Mode.THRESHOLD, DEFAULT_MAX_TICKS, seed);
+	}
+
+	/**
+	 * StartRegionSweep constructor.
+	 *
+	 * @param stepsPerDegree
+	 *            The number of temperatures tried per degree.
+	 * @param mode
+	 *            The mode of the ReactorController driving each reactor.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit() and counted as safe.
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 */
+	public StartRegionSweep(final int stepsPerDegree, final ReactorController.Mode mode, final int maxTicks,
+			final long seed) {
+		this(stepsPerDegree, mode, maxTicks, seed, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * StartRegionSweep constructor for reactors with their own physics
+	 * parameters.
+	 *
+	 * @param stepsPerDegree
+	 *            The number of temperatures tried per degree.
+	 * @param mode
+	 *            The mode of the ReactorController driving each reactor.
+	 * @param maxTicks
+	 *            The number of ticks after which a run that is still operating
+	 *            is ended with quit() and counted as safe.
+	 * @param seed
+	 *            The seed from which every reactor's seed is derived.
+	 * @param config
+	 *            The physics parameters of every reactor.
+	 */
+	public StartRegionSweep(final int stepsPerDegree, final ReactorController.Mode mode, final int maxTicks,
+			final long seed, final ReactorConfig config) {
+		this.config = config;
+		this.stepsPerDegree = stepsPerDegree;
+		this.mode = mode;
+		this.maxTicks = maxTicks;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the sweep on the common fork-join pool.
+	 *
+	 * @return the outcome of every start.
+	 */
+	public StartRegion run() {
+		return this.run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the sweep on the given fork-join pool.
+	 *
+	 * @param pool
+	 *            The pool to run the reactors on.
+	 * @return the outcome of every start.
+	 */
+	public StartRegion run(final ForkJoinPool pool) {
+		final StartRegion region = new StartRegion(this.stepsPerDegree, this.maxTicks, this.config);
+
+		pool.invoke(new SweepTask(region, 0, region.getCells(), new SplittableRandom(this.seed)));
+
+		return region;
+	}
+
+	/**
+	 * Runs the reactor starting from one cell until it stops operating or
+	 * reaches maxTicks and records its outcome in region.
+	 */
+	private void runOne(final StartRegion region, final int cell, final long seed) {
+		Reactor reactor = new Reactor(region.getTemperature(cell), region.getRodsHeight(cell), 0, seed,
+				this.config);
+
+		new ReactorController(reactor, false, this.mode);
+
+		while (reactor.getStatus() == Reactor.Status.OPERATING) {
+			if (reactor.getTicks() >= this.maxTicks) {
+				reactor.quit();
+			}
+			reactor.tick();
+		}
+
+		region.set(cell, reactor.getStatus(), reactor.getTicks(), reactor.getAveragePower());
+	}
+
+}
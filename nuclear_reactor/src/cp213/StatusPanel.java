@@ -3,8 +3,6 @@ package cp213;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.GridLayout;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -22,20 +20,6 @@ import javax.swing.SwingConstants;
 @SuppressWarnings("serial")
 public class StatusPanel extends JPanel {
 
-	// -------------------------------------------------------------------------------
-	/**
-	 * An inner class the listens for the changes in the model in order to update
-	 * the labels accordingly.
-	 */
-	private class ChangeTextListener implements PropertyChangeListener {
-
-		@Override
-		public void propertyChange(final PropertyChangeEvent arg0) {
-			StatusPanel.this.lblStatus.setText(StatusPanel.this.model.getStatus().toString());
-			StatusPanel.this.lblInsertion.setText("Rod insertion: " + StatusPanel.this.model.getRodsHeight());
-		}
-	}
-
 	// The reactor to control.
 	private Reactor model;
 
@@ -56,7 +40,6 @@ public class StatusPanel extends JPanel {
 	StatusPanel(final Reactor model) {
 		this.model = model;
 		this.layoutView();
-		this.registerListeners();
 	}
 
 	// ---------------------------------------------------------------
@@ -82,18 +65,20 @@ public class StatusPanel extends JPanel {
 		lblInsertion.setHorizontalAlignment(SwingConstants.CENTER);
 		this.add(lblInsertion);
 
-		lblStatus.setText(this.model.getStatus().toString());
-		lblInsertion.setText("Rod insertion: " + this.model.getRodsHeight());
+		this.refresh(this.model.getSnapshot());
 
 	}
 
 	// ---------------------------------------------------------------
 	/**
-	 * Assigns listener to the model.
+	 * Updates the labels. Must be called on the event dispatch thread.
+	 *
+	 * @param snapshot
+	 *            The readings of the model to show.
 	 */
-	private void registerListeners() {
-		// Add model listener.
-		this.model.addPropertyChangeListener(new ChangeTextListener());
+	void refresh(final ReactorSnapshot snapshot) {
+		this.lblStatus.setText(snapshot.getStatus().toString());
+		this.lblInsertion.setText("Rod insertion: " + snapshot.getRodsHeight());
 	}
 
 }
@@ -0,0 +1,241 @@
+package cp213;
+
+/**
+ * Statistics of a stream of values kept without storing the values: count,
+ * mean, variance, extremes and percentiles. The mean is the compensated sum of
+ * the values over their count, so rounding errors do not build up over a long
+ * stream as they do in a running average. The variance is kept with Welford's
+ * update, which does not lose precision when the values are large and close
+ * together. Percentiles come from a QuantileSketch.
+ *
+ * Statistics of different streams merge into the statistics of both streams,
+ * so each thread or reactor can record in its own and the results be merged.
+ * Statistics are not thread-safe.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class StreamingStatistics {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of StreamingStatistics class. The sum of the values is
+	 * sum + compensation, where compensation holds the low-order bits lost
+	 * adding to sum. mean and m2 are Welford's running mean and sum of squared
+	 * differences from it.
+	 */
+	private final QuantileSketch sketch;
+	private long count = 0;
+	private double sum = 0;
+	private double compensation = 0;
+	private double mean = 0;
+	private double m2 = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * StreamingStatistics constructor with percentiles of the default accuracy.
+	 */
+	public StreamingStatistics() {
+		this(QuantileSketch.DEFAULT_ACCURACY);
+	}
+
+	/**
+	 * StreamingStatistics constructor.
+	 *
+	 * @param accuracy
+	 *            The relative accuracy of the percentiles, above 0 and below 1.
+	 */
+	public StreamingStatistics(final double accuracy) {
+		this.sketch = new QuantileSketch(accuracy);
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return count.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return max, 0 if none was recorded.
+	 */
+	public double getMax() {
+		return this.count == 0 ? 0 : this.max;
+	}
+
+	/**
+	 * Returns the mean of the values recorded.
+	 *
+	 * @return mean, 0 if none was recorded.
+	 */
+	public double getMean() {
+		return this.count == 0 ? 0 : (this.sum + this.compensation) / this.count;
+	}
+
+	/**
+	 * Returns the smallest value recorded.
+	 *
+	 * @return min, 0 if none was recorded.
+	 */
+	public double getMin() {
+		return this.count == 0 ? 0 : this.min;
+	}
+
+	/**
+	 * Returns an estimate of a percentile of the values recorded, within the
+	 * relative accuracy of a value recorded, and never outside the smallest and
+	 * largest. Percentiles 0 and 100 are the smallest and largest.
+	 *
+	 * @param percentile
+	 *            The percentile, from 0 to 100.
+	 * @return the estimate, 0 if none was recorded.
+	 */
+	public double getPercentile(final double percentile) {
+
+		if (this.count == 0) {
+			return 0;
+		} else if (percentile <= 0) {
+			return this.min;
+		} else if (percentile >= 100) {
+			return this.max;
+		}
+
+		return Math.min(Math.max(this.sketch.getQuantile(percentile / 100), this.min), this.max);
+	}
+
+	/**
+	 * Returns the standard deviation of the values recorded.
+	 *
+	 * @return standard deviation, 0 if none was recorded.
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+
+	/**
+	 * Returns the sum of the values recorded.
+	 *
+	 * @return sum.
+	 */
+	public double getSum() {
+		return this.sum + this.compensation;
+	}
+
+	/**
+	 * Returns the variance of the values recorded, as a population.
+	 *
+	 * @return variance, 0 if none was recorded.
+	 */
+	public double getVariance() {
+		return this.count == 0 ? 0 : Math.max(this.m2 / this.count, 0);
+	}
+
+	/**
+	 * Adds the statistics of another stream, of the same percentile accuracy, to
+	 * these.
+	 *
+	 * @param other
+	 *            The statistics to merge into these.
+	 */
+	public void merge(final StreamingStatistics other) {
+		this.merge(other, 1);
+	}
+
+	/**
+	 * Adds the statistics of another stream, of the same percentile accuracy, to
+	 * these a number of times, as if the stream had been recorded that many times.
+	 * Used to account for a stream of values that repeats.
+	 *
+	 * @param other
+	 *            The statistics to merge into these.
+	 * @param times
+	 *            The number of times, 0 or more.
+	 */
+	public void merge(final StreamingStatistics other, final long times) {
+
+		this.sketch.merge(other.sketch, times);
+
+		if (other.count == 0 || times == 0) {
+			return;
+		}
+
+		// Copies of one stream share its mean, so their squared differences add up.
+		final long otherCount = other.count * times;
+		final double otherM2 = other.m2 * times;
+
+		// Chan's formula for the union of two streams.
+		final long count = this.count + otherCount;
+		final double delta = other.mean - this.mean;
+
+		this.mean += delta * otherCount / count;
+		this.m2 += otherM2 + delta * delta * ((double) this.count * otherCount / count);
+		this.count = count;
+		this.add(other.sum * times);
+		this.add(other.compensation * times);
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value
+	 *            The value.
+	 */
+	public void record(final double value) {
+		this.count++;
+
+		final double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.m2 += delta * (value - this.mean);
+
+		this.add(value);
+		this.min = Math.min(this.min, value);
+		this.max = Math.max(this.max, value);
+		this.sketch.add(value);
+	}
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	public void reset() {
+		this.sketch.reset();
+		this.count = 0;
+		this.sum = 0;
+		this.compensation = 0;
+		this.mean = 0;
+		this.m2 = 0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.3f, sd=%.3f, min=%.3f, p50=%.3f, p99=%.3f, p99.9=%.3f, max=%.3f",
+				this.count, this.getMean(), this.getStandardDeviation(), this.getMin(), this.getPercentile(50),
+				this.getPercentile(99), this.getPercentile(99.9), this.getMax());
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Adds a value to the compensated sum, with Neumaier's variant of Kahan
+	 * summation, which also holds when the value is larger than the sum.
+	 */
+	private void add(final double value) {
+		final double sum = this.sum + value;
+
+		if (Math.abs(this.sum) >= Math.abs(value)) {
+			this.compensation += (this.sum - sum) + value;
+		} else {
+			this.compensation += (value - sum) + this.sum;
+		}
+		this.sum = sum;
+	}
+
+}
@@ -4,8 +4,6 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -22,26 +20,6 @@ import javax.swing.SwingConstants;
 @SuppressWarnings("serial")
 public class SummaryPanel extends JPanel {
 
-	// -------------------------------------------------------------------------------
-	/**
-	 * An inner class the listens for the changes in the model in order to update
-	 * the textfields accordingly.
-	 */
-	private class ChangeTextListener implements PropertyChangeListener {
-
-		@Override
-		public void propertyChange(final PropertyChangeEvent arg0) {
-			SummaryPanel.this.txtTicks.setText("" + SummaryPanel.this.model.getTicks());
-			SummaryPanel.this.txtTemperature
-					.setText(String.format("%.5f", SummaryPanel.this.model.getTemperature()) + "°C");
-			SummaryPanel.this.txtPower.setText(String.format("%.5f", SummaryPanel.this.model.getPower()) + "MW");
-			SummaryPanel.this.txtAvgTemperature
-					.setText(String.format("%.5f", SummaryPanel.this.model.getAverageTemperature()) + "°C");
-			SummaryPanel.this.txtAvgPower
-					.setText(String.format("%.5f", SummaryPanel.this.model.getAveragePower()) + "MW");
-		}
-	}
-
 	// The reactor to control.
 	private Reactor model;
 
@@ -72,7 +50,6 @@ public class SummaryPanel extends JPanel {
 	SummaryPanel(final Reactor model) {
 		this.model = model;
 		this.layoutView();
-		this.registerListeners();
 	}
 
 	// ---------------------------------------------------------------
@@ -158,21 +135,23 @@ public class SummaryPanel extends JPanel {
 		txtAvgPower.setEditable(false);
 		this.add(txtAvgPower, c);
 
-		this.txtTicks.setText("" + this.model.getTicks());
-		this.txtTemperature.setText(String.format("%.5f", this.model.getTemperature()) + "°C");
-		this.txtPower.setText(String.format("%.5f", this.model.getPower()) + "MW");
-		this.txtAvgTemperature.setText(String.format("%.5f", this.model.getAverageTemperature()) + "°C");
-		this.txtAvgPower.setText(String.format("%.5f", this.model.getAveragePower()) + "MW");
+		this.refresh(this.model.getSnapshot());
 
 	}
 
 	// ---------------------------------------------------------------
 	/**
-	 * Assigns listener to the model.
+	 * Updates the textfields. Must be called on the event dispatch thread.
+	 *
+	 * @param snapshot
+	 *            The readings of the model to show.
 	 */
-	private void registerListeners() {
-		// Add model listener.
-		this.model.addPropertyChangeListener(new ChangeTextListener());
+	void refresh(final ReactorSnapshot snapshot) {
+		this.txtTicks.setText("" + snapshot.getTicks());
+		this.txtTemperature.setText(String.format("%.5f", snapshot.getTemperature()) + "°C");
+		this.txtPower.setText(String.format("%.5f", snapshot.getPower()) + "MW");
+		this.txtAvgTemperature.setText(String.format("%.5f", snapshot.getAverageTemperature()) + "°C");
+		this.txtAvgPower.setText(String.format("%.5f", snapshot.getAveragePower()) + "MW");
 	}
 
 }
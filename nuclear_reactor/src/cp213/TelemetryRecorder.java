@@ -0,0 +1,302 @@
+package cp213;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every tick of a reactor as a fixed-width binary record in
+ * memory-mapped segment files. Writing a record only stores into mapped memory;
+ * the operating system writes the pages to disk in the background, so the
+ * recorder keeps up with unthrottled reactors. The next segment is created and
+ * mapped on a background thread while the current one fills, and the recorder
+ * switches to it when the current one is full. The full segment is then forced
+ * to disk on the same background thread.
+ *
+ * Each segment, named prefix-NNNNNN.tlm, starts with a HEADER_SIZE header that
+ * holds the reactor's start values and seed and the number of records in the
+ * segment, followed by RECORD_SIZE records of the tick, temperature, power, rod
+ * heights, status, and the command applied during the tick.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class TelemetryRecorder implements TickListener, Closeable {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Bytes in the header of every segment.
+	public static final int HEADER_SIZE = 64;
+	// Bytes in every record.
+	public static final int RECORD_SIZE = 32;
+	// Default number of records per segment.
+	public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+	// ---------------------------------------------------------------
+	// Header layout.
+	static final int MAGIC = 0x52544c4d;
+	static final int VERSION = 1;
+	static final int HEADER_MAGIC = 0;
+	static final int HEADER_VERSION = 4;
+	static final int HEADER_SEGMENT = 8;
+	static final int HEADER_COUNT = 12;
+	static final int HEADER_SEED = 16;
+	static final int HEADER_TEMPERATURE = 24;
+	static final int HEADER_RODS_HEIGHT = 32;
+	static final int HEADER_TICK_SPEED = 36;
+	static final int HEADER_CAPACITY = 40;
+
+	// Record layout.
+	static final int RECORD_TICK = 0;
+	static final int RECORD_TEMPERATURE = 4;
+	static final int RECORD_POWER = 12;
+	static final int RECORD_RODS_HEIGHT = 20;
+	static final int RECORD_STATUS = 24;
+	static final int RECORD_COMMAND = 25;
+	// Value of RECORD_COMMAND when no command was applied.
+	static final byte NO_COMMAND = -1;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of TelemetryRecorder class.
+	 */
+	private final Reactor model;
+	private final File directory;
+	private final String prefix;
+	private final int segmentRecords;
+	private final double initialTemperature;
+	private final int initialRodsHeight;
+	private final ExecutorService mapper;
+	private MappedByteBuffer segment;
+	private int segmentNumber = 0;
+	private int records = 0;
+	private Future<MappedByteBuffer> nextSegment;
+	private volatile IOException error = null;
+
+	/**
+	 * TelemetryRecorder constructor with DEFAULT_SEGMENT_RECORDS records per
+	 * segment.
+	 *
+	 * @param model
+	 *            The reactor to record. It must not have ticked yet.
+	 * @param directory
+	 *            The directory to write the segments to.
+	 * @param prefix
+	 *            The start of the segment file names.
+	 * @throws IOException
+	 *             if the first segment cannot be created.
+	 */
+	public TelemetryRecorder(final Reactor model, final File directory, final String prefix) throws IOException {
+		this(model, directory, prefix, DEFAULT_SEGMENT_RECORDS);
+	}
+
+	/**
+	 * TelemetryRecorder constructor. Creates the first segment and attaches the
+	 * recorder to the model.
+	 *
+	 * @param model
+	 *            The reactor to record. It must not have ticked yet, and must
+	 *            use the default config, which is the one replays use.
+	 * @param directory
+	 *            The directory to write the segments to.
+	 * @param prefix
+	 *            The start of the segment file names.
+	 * @param segmentRecords
+	 *            The number of records per segment.
+	 * @throws IOException
+	 *             if the first segment cannot be created.
+	 */
+	public TelemetryRecorder(final Reactor model, final File directory, final String prefix,
+			final int segmentRecords) throws IOException {
+
+		if (model.getTicks() != 0) {
+			throw new IllegalStateException("The reactor has already ticked.");
+		}
+		if (model.getConfig() != ReactorConfig.DEFAULT) {
+			throw new IllegalArgumentException("Only reactors with the default config can be replayed.");
+		}
+
+		this.model = model;
+		this.directory = directory;
+		this.prefix = prefix;
+		this.segmentRecords = segmentRecords;
+		this.initialTemperature = model.getTemperature();
+		this.initialRodsHeight = model.getRodsHeight();
+		this.mapper = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "telemetry-" + prefix);
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.segment = this.map(0);
+		this.nextSegment = this.mapLater(1);
+
+		model.addTickListener(this);
+	}
+
+	/**
+	 * Detaches the recorder from the model, stops creating segments and forces
+	 * the current one to disk. Records already written stay in the segment
+	 * files; the segment prepared to follow the current one is deleted.
+	 */
+	@Override
+	public void close() {
+		this.model.removeTickListener(this);
+		this.nextSegment.cancel(false);
+		this.mapper.shutdown();
+		this.segment.force();
+
+		// Cancelling does not stop a mapping that has started, so wait for it
+		// and any forcing of full segments before deleting the unused file.
+		try {
+			this.mapper.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// A file that cannot be deleted holds no records, so replays ignore it.
+		segmentFile(this.directory, this.prefix, this.segmentNumber + 1).delete();
+	}
+
+	/**
+	 * Returns the error that stopped the recorder, if any.
+	 *
+	 * @return the error, or null if the recorder is still recording.
+	 */
+	public IOException getError() {
+		return this.error;
+	}
+
+	/**
+	 * Returns the file holding a segment.
+	 *
+	 * @param directory
+	 *            The directory of the segments.
+	 * @param prefix
+	 *            The start of the segment file names.
+	 * @param segment
+	 *            The number of the segment.
+	 * @return the segment file.
+	 */
+	public static File segmentFile(final File directory, final String prefix, final int segment) {
+		return new File(directory, String.format("%s-%06d.tlm", prefix, segment));
+	}
+
+	@Override
+	public void onTick(final int tick, final double temperature, final double power, final int rodsHeight,
+			final Reactor.Status status) {
+
+		if (this.error != null) {
+			return;
+		}
+
+		if (this.records == this.segmentRecords && !this.nextSegment()) {
+			return;
+		}
+
+		final Reactor.Command command = this.model.getAppliedCommand();
+		final int offset = HEADER_SIZE + this.records * RECORD_SIZE;
+		final MappedByteBuffer segment = this.segment;
+
+		segment.putInt(offset + RECORD_TICK, tick);
+		segment.putDouble(offset + RECORD_TEMPERATURE, temperature);
+		segment.putDouble(offset + RECORD_POWER, power);
+		segment.putInt(offset + RECORD_RODS_HEIGHT, rodsHeight);
+		segment.put(offset + RECORD_STATUS, (byte) status.ordinal());
+		segment.put(offset + RECORD_COMMAND, command == null ? NO_COMMAND : (byte) command.ordinal());
+
+		this.records++;
+		segment.putInt(HEADER_COUNT, this.records);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Creates a segment file, maps it, and writes its header.
+	 */
+	private MappedByteBuffer map(final int number) throws IOException {
+		final long size = HEADER_SIZE + (long) this.segmentRecords * RECORD_SIZE;
+		final MappedByteBuffer buffer;
+
+		try (RandomAccessFile file = new RandomAccessFile(segmentFile(this.directory, this.prefix, number), "rw")) {
+			file.setLength(size);
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(HEADER_MAGIC, MAGIC);
+		buffer.putInt(HEADER_VERSION, VERSION);
+		buffer.putInt(HEADER_SEGMENT, number);
+		buffer.putInt(HEADER_COUNT, 0);
+		buffer.putLong(HEADER_SEED, this.model.getSeed());
+		buffer.putDouble(HEADER_TEMPERATURE, this.initialTemperature);
+		buffer.putInt(HEADER_RODS_HEIGHT, this.initialRodsHeight);
+		buffer.putInt(HEADER_TICK_SPEED, this.model.getTickSpeed());
+		buffer.putInt(HEADER_CAPACITY, this.segmentRecords);
+
+		return buffer;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Creates and maps a segment on the background thread.
+	 */
+	private Future<MappedByteBuffer> mapLater(final int number) {
+		return this.mapper.submit(new Callable<MappedByteBuffer>() {
+
+			@Override
+			public MappedByteBuffer call() throws IOException {
+				return TelemetryRecorder.this.map(number);
+			}
+		});
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Switches to the next segment, forces the full one to disk and starts
+	 * preparing the one after it, both on the background thread. Only waits if
+	 * the next segment is not ready yet.
+	 *
+	 * @return true if recording can continue, false if not.
+	 */
+	private boolean nextSegment() {
+
+		final MappedByteBuffer full = this.segment;
+
+		try {
+			this.segment = this.nextSegment.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.error = new IOException("Interrupted while waiting for a segment.", e);
+			return false;
+		} catch (ExecutionException e) {
+			this.error = e.getCause() instanceof IOException ? (IOException) e.getCause()
+					: new IOException(e.getCause());
+			return false;
+		}
+
+		this.segmentNumber++;
+		this.records = 0;
+		this.mapper.execute(() -> {
+			try {
+				full.force();
+			} catch (UncheckedIOException e) {
+				this.error = e.getCause();
+			}
+		});
+		this.nextSegment = this.mapLater(this.segmentNumber + 1);
+
+		return true;
+	}
+
+}
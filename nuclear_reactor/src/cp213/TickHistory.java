@@ -0,0 +1,135 @@
+package cp213;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed-size history of the latest temperature, power, and rod heights of a
+ * reactor, one sample per tick. Samples are kept in primitive ring buffers, so
+ * recording a tick neither allocates nor grows the history; once full, each new
+ * sample replaces the oldest. Attach it to a reactor with addTickListener().
+ *
+ * Samples are numbered from 0 in the order they were recorded. Only the ticking
+ * thread records; other threads may read, and should check isAvailable() after
+ * reading a sample that could have been replaced in the meantime.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class TickHistory implements TickListener {
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of TickHistory class. The buffers have one slot more
+	 * than the samples kept: the slot of the sample being recorded, which no
+	 * reader may rely on.
+	 */
+	private final int capacity;
+	private final int mask;
+	private final double[] temperature;
+	private final double[] power;
+	private final int[] rodsHeight;
+	// Number of samples recorded. Written after the sample, which publishes it.
+	private volatile long count = 0;
+
+	/**
+	 * TickHistory constructor.
+	 *
+	 * @param capacity
+	 *            The number of samples to keep, rounded up to one less than a
+	 *            power of two.
+	 */
+	public TickHistory(final int capacity) {
+		final int length = capacity <= 1 ? 2 : Integer.highestOneBit(capacity) << 1;
+
+		this.capacity = length - 1;
+		this.mask = length - 1;
+		this.temperature = new double[length];
+		this.power = new double[length];
+		this.rodsHeight = new int[length];
+	}
+
+	/**
+	 * Returns the number of samples the history keeps.
+	 *
+	 * @return capacity.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the number of samples recorded since the history was created. The
+	 * newest sample is number getCount() - 1.
+	 *
+	 * @return count.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the power of a sample.
+	 *
+	 * @param sample
+	 *            The number of the sample.
+	 * @return power.
+	 */
+	public double getPower(final long sample) {
+		return this.power[(int) sample & this.mask];
+	}
+
+	/**
+	 * Returns the rod heights of a sample.
+	 *
+	 * @param sample
+	 *            The number of the sample.
+	 * @return rodsHeight.
+	 */
+	public int getRodsHeight(final long sample) {
+		return this.rodsHeight[(int) sample & this.mask];
+	}
+
+	/**
+	 * Returns the temperature of a sample.
+	 *
+	 * @param sample
+	 *            The number of the sample.
+	 * @return temperature.
+	 */
+	public double getTemperature(final long sample) {
+		return this.temperature[(int) sample & this.mask];
+	}
+
+	/**
+	 * Returns whether a sample is still held by the history.
+	 *
+	 * @param sample
+	 *            The number of the sample.
+	 * @return true if the sample has been recorded and its slot is not being
+	 *         reused.
+	 */
+	public boolean isAvailable(final long sample) {
+		// The sample read before this call must not be read after count.
+		VarHandle.acquireFence();
+		final long count = this.count;
+
+		// The slot of sample count - capacity - 1 may be being overwritten.
+		return sample >= 0 && sample < count && sample > count - this.capacity - 1;
+	}
+
+	@Override
+	public void onTick(final int tick, final double temperature, final double power, final int rodsHeight,
+			final Reactor.Status status) {
+		final long count = this.count;
+		final int index = (int) count & this.mask;
+
+		// The slot must not be overwritten before the count that excludes it is seen.
+		VarHandle.storeStoreFence();
+		this.temperature[index] = temperature;
+		this.power[index] = power;
+		this.rodsHeight[index] = rodsHeight;
+		this.count = count + 1;
+	}
+
+}
@@ -0,0 +1,30 @@
+package cp213;
+
+/**
+ * Listens for the end of each reactor tick. The readings of the tick are passed
+ * as primitives, so notifying a TickListener allocates nothing and the
+ * listener does not need to call back into the reactor.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public interface TickListener {
+
+	/**
+	 * Called on the thread ticking the reactor at the end of every tick.
+	 *
+	 * @param tick
+	 *            The number of ticks since the beginning of the simulation.
+	 * @param temperature
+	 *            The reactor's temperature.
+	 * @param power
+	 *            The reactor's power level.
+	 * @param rodsHeight
+	 *            The reactor's rod heights.
+	 * @param status
+	 *            The reactor's status.
+	 */
+	void onTick(int tick, double temperature, double power, int rodsHeight, Reactor.Status status);
+
+}
@@ -0,0 +1,438 @@
+package cp213;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers how headless runs ended from each state they passed through. When
+ * the noise of the reactors' config is fixed, every tick adds the same noise,
+ * so a run with a given controller is decided by its temperature, rod heights
+ * and whether its rods were dropped: any later run reaching the same state, to the bit, ends the
+ * same way. Such a run can stop at that state and take the final status, the
+ * remaining ticks and the remaining power from the cache. Averages taken from
+ * the cache can differ from a full run in the last bits.
+ *
+ * Every run sharing a cache must use the same config, controller mode and tick
+ * cap.
+ * The cache is disabled, and runs are always ticked to the end, when the noise
+ * can vary.
+ *
+ * Each thread keeps the states of its current run in a buffer that grows up to
+ * MAX_STATES; a run that outlasts it is ticked to the end and not stored. The
+ * entries are only allocated once a run starts, and never if the cache is
+ * disabled.
+ *
+ * The cache holds a fixed number of entries in sets of WAYS, each set guarded
+ * by one of SEGMENTS locks. When a set is full, an entry is evicted with the
+ * CLOCK algorithm: the set's hand skips entries used since it last passed them,
+ * and evicts the first one that was not.
+ *
+ * @author Nathaniel Carr
+ * @version 2017-12-03
+ *
+ */
+public class TrajectoryCache {
+
+	// ---------------------------------------------------------------
+	// Public Constants.
+	// Default number of entries.
+	public static final int DEFAULT_CAPACITY = 1 << 18;
+	// Entries per set.
+	public static final int WAYS = 8;
+	// Most states of one run remembered; longer runs are not stored.
+	public static final int MAX_STATES = 1 << 17;
+
+	// ---------------------------------------------------------------
+	// Private Constants.
+	// Number of locks; a power of two.
+	private static final int SEGMENTS = 64;
+	// States a run's buffer holds at first; it doubles as needed.
+	private static final int INITIAL_STATES = 1024;
+	private static final Reactor.Status[] STATUSES = Reactor.Status.values();
+	// Rods key bit marking dropped rods, and the key of an empty entry.
+	private static final int DROPPED = 1 << 30;
+	private static final int EMPTY = -1;
+
+	// ---------------------------------------------------------------
+	/**
+	 * Follows one run, recording the states it passes through. Each thread gets
+	 * its own from start(); it is reused for the thread's next run.
+	 */
+	public class Run {
+
+		private long[] temperatures;
+		private int[] rods;
+		private double[] powers;
+		private int size = 0;
+		// Set once the run outgrows MAX_STATES; it is then no longer followed.
+		private boolean abandoned = false;
+		private Reactor.Status status;
+		private int ticks;
+		private double averagePower;
+
+		private Run(final int states) {
+			this.temperatures = new long[states];
+			this.rods = new int[states];
+			this.powers = new double[states];
+		}
+
+		/**
+		 * Returns the average power of the run ended from the cache.
+		 *
+		 * @return average power.
+		 */
+		public double getAveragePower() {
+			return this.averagePower;
+		}
+
+		/**
+		 * Returns the final status of the run ended from the cache.
+		 *
+		 * @return status.
+		 */
+		public Reactor.Status getStatus() {
+			return this.status;
+		}
+
+		/**
+		 * Returns the number of ticks of the run ended from the cache.
+		 *
+		 * @return ticks.
+		 */
+		public int getTicks() {
+			return this.ticks;
+		}
+
+		/**
+		 * Records the state the reactor reached and looks it up. Call at the end of
+		 * every tick of an operating reactor, after its controller has reacted, and
+		 * once before the first tick.
+		 *
+		 * @param reactor
+		 *            The reactor of the run.
+		 * @return true if the cache tells how the run ends; the outcome is then
+		 *         returned by the getters and the run need not be ticked further.
+		 */
+		public boolean reached(final Reactor reactor) {
+
+			if (!TrajectoryCache.this.enabled || this.abandoned) {
+				return false;
+			}
+
+			final int tick = reactor.getTicks();
+
+			if (tick >= this.temperatures.length && !this.grow(tick)) {
+				this.abandoned = true;
+				return false;
+			}
+			final long temperature = Double.doubleToLongBits(reactor.getTemperature());
+			final int rods = key(reactor.getRodsHeight(), reactor.isRodsDropped());
+
+			this.temperatures[tick] = temperature;
+			this.rods[tick] = rods;
+			this.powers[tick] = reactor.getPower();
+			this.size = tick + 1;
+
+			final int set = TrajectoryCache.this.set(temperature, rods);
+			final int first = set * WAYS;
+			int way = -1;
+			Reactor.Status status = null;
+			int remaining = 0;
+			double power = 0;
+
+			synchronized (TrajectoryCache.this.locks[set & (SEGMENTS - 1)]) {
+				way = TrajectoryCache.this.find(first, temperature, rods);
+
+				if (way >= 0) {
+					TrajectoryCache.this.referenced[first + way] = true;
+					status = STATUSES[TrajectoryCache.this.status[first + way]];
+					remaining = TrajectoryCache.this.remaining[first + way];
+					power = TrajectoryCache.this.power[first + way];
+				}
+			}
+
+			// A run that is quit at the tick cap ends differently if it reaches the
+			// state at a different tick.
+			if (way < 0 || (status == Reactor.Status.FINISHED ? tick + remaining != TrajectoryCache.this.maxTicks
+					: tick + remaining > TrajectoryCache.this.maxTicks)) {
+				TrajectoryCache.this.misses.increment();
+				return false;
+			}
+
+			TrajectoryCache.this.hits.increment();
+
+			// The earlier states of the run end the same way.
+			TrajectoryCache.this.store(this, tick - 1, status, remaining + 1, power + this.powers[tick]);
+
+			// Averages include the starting power, and count no tick after the run stops
+			// operating.
+			final int samples = status == Reactor.Status.FINISHED ? tick + remaining + 1 : tick + remaining;
+			this.status = status;
+			this.ticks = tick + remaining;
+			this.averagePower = (reactor.getAveragePower() * (tick + 1) + power) / samples;
+
+			return true;
+		}
+
+		/**
+		 * Stores the states of a run that was ticked to the end.
+		 *
+		 * @param reactor
+		 *            The reactor of the run, no longer operating.
+		 */
+		public void end(final Reactor reactor) {
+
+			if (TrajectoryCache.this.enabled && !this.abandoned && this.size > 0) {
+				final int last = this.size - 1;
+
+				TrajectoryCache.this.store(this, last, reactor.getStatus(), reactor.getTicks() - last, 0);
+			}
+		}
+
+		/**
+		 * Grows the buffer to hold state tick, in steps of twice its length.
+		 *
+		 * @return true if it holds the state, false if that needs more than
+		 *         MAX_STATES.
+		 */
+		private boolean grow(final int tick) {
+
+			if (tick >= MAX_STATES) {
+				return false;
+			}
+
+			final int length = Math.min(Math.max(this.temperatures.length * 2, tick + 1), MAX_STATES);
+
+			this.temperatures = Arrays.copyOf(this.temperatures, length);
+			this.rods = Arrays.copyOf(this.rods, length);
+			this.powers = Arrays.copyOf(this.powers, length);
+
+			return true;
+		}
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Private properties of TrajectoryCache class. Entries are stored set by set,
+	 * in arrays allocated by the first call to start(); every thread calls it
+	 * before it reads them.
+	 */
+	private final boolean enabled;
+	private final int maxTicks;
+	private final int sets;
+	private final Object[] locks = new Object[SEGMENTS];
+	private long[] temperature = null;
+	private int[] rods = null;
+	private byte[] status = null;
+	private int[] remaining = null;
+	private double[] power = null;
+	private boolean[] referenced = null;
+	private int[] hands = null;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final ThreadLocal<Run> runs = new ThreadLocal<Run>();
+
+	/**
+	 * TrajectoryCache constructor.
+	 *
+	 * @param capacity
+	 *            The number of entries, rounded up to a power of two of at least
+	 *            WAYS.
+	 * @param maxTicks
+	 *            The number of ticks after which runs are quit.
+	 */
+	public TrajectoryCache(final int capacity, final int maxTicks) {
+		this(capacity, maxTicks, ReactorConfig.DEFAULT);
+	}
+
+	/**
+	 * TrajectoryCache constructor for runs of reactors with the given config.
+	 *
+	 * @param capacity
+	 *            The number of entries, rounded up to a power of two of at least
+	 *            WAYS.
+	 * @param maxTicks
+	 *            The number of ticks after which runs are quit.
+	 * @param config
+	 *            The physics parameters of the reactors.
+	 */
+	public TrajectoryCache(final int capacity, final int maxTicks, final ReactorConfig config) {
+		this.enabled = config.isNoiseFixed();
+		this.maxTicks = maxTicks;
+		this.sets = this.enabled ? Math.max(1, Integer.highestOneBit(Math.max(capacity - 1, 1)) * 2 / WAYS) : 0;
+
+		for (int i = 0; i < SEGMENTS; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return capacity, 0 if disabled.
+	 */
+	public int getCapacity() {
+		return this.sets * WAYS;
+	}
+
+	/**
+	 * Returns the number of states found that ended the run.
+	 *
+	 * @return hits.
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Returns the number of states looked up that did not end the run.
+	 *
+	 * @return misses.
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Returns whether the cache is used, i.e. whether the noise is fixed.
+	 *
+	 * @return true if enabled, false if not.
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Starts following a run on the calling thread.
+	 *
+	 * @return the thread's Run.
+	 */
+	public Run start() {
+		Run run = this.runs.get();
+
+		if (run == null) {
+			// A disabled cache records nothing.
+			if (this.enabled) {
+				this.allocate();
+			}
+			run = new Run(this.enabled ? INITIAL_STATES : 0);
+			this.runs.set(run);
+		}
+		run.size = 0;
+		run.abandoned = false;
+
+		return run;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Allocates the entries, unless another thread already has. Synchronized, so
+	 * each thread calling it sees them.
+	 */
+	private synchronized void allocate() {
+
+		if (this.temperature != null) {
+			return;
+		}
+
+		final int entries = this.sets * WAYS;
+		this.rods = new int[entries];
+		Arrays.fill(this.rods, EMPTY);
+		this.status = new byte[entries];
+		this.remaining = new int[entries];
+		this.power = new double[entries];
+		this.referenced = new boolean[entries];
+		this.hands = new int[this.sets];
+		this.temperature = new long[entries];
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the rods key of a state.
+	 */
+	private static int key(final int rodsHeight, final boolean rodsDropped) {
+		return rodsDropped ? rodsHeight | DROPPED : rodsHeight;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the set of a state.
+	 */
+	private int set(final long temperature, final int rods) {
+		long hash = (temperature ^ ((long) rods << 32)) * 0x9e3779b97f4a7c15L;
+
+		return (int) (hash >>> 32) & (this.sets - 1);
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Returns the way holding a state in the set starting at first, or -1. Must
+	 * be called with the set's lock held.
+	 */
+	private int find(final int first, final long temperature, final int rods) {
+
+		for (int way = 0; way < WAYS; way++) {
+			if (this.rods[first + way] == rods && this.temperature[first + way] == temperature) {
+				return way;
+			}
+		}
+
+		return -1;
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Stores the states of a run up to and including state last, given the
+	 * outcome from state last: the final status, the ticks remaining and the
+	 * power of the operating ticks remaining.
+	 */
+	private void store(final Run run, final int last, final Reactor.Status status, int remaining, double power) {
+
+		for (int tick = last; tick >= 0; tick--) {
+			final long temperature = run.temperatures[tick];
+			final int rods = run.rods[tick];
+			final int set = this.set(temperature, rods);
+			final int first = set * WAYS;
+
+			synchronized (this.locks[set & (SEGMENTS - 1)]) {
+				int way = this.find(first, temperature, rods);
+
+				if (way < 0) {
+					way = this.evict(set);
+				}
+				this.temperature[first + way] = temperature;
+				this.rods[first + way] = rods;
+				this.status[first + way] = (byte) status.ordinal();
+				this.remaining[first + way] = remaining;
+				this.power[first + way] = power;
+				this.referenced[first + way] = false;
+			}
+
+			// Step back one tick: one more tick to go, and its power counts.
+			remaining++;
+			power += run.powers[tick];
+		}
+
+	}
+
+	// ---------------------------------------------------------------
+	/**
+	 * Chooses the way of a set to replace. Must be called with the set's lock
+	 * held.
+	 */
+	private int evict(final int set) {
+		final int first = set * WAYS;
+
+		while (true) {
+			final int way = this.hands[set];
+			this.hands[set] = (way + 1) & (WAYS - 1);
+
+			if (this.rods[first + way] == EMPTY || !this.referenced[first + way]) {
+				return way;
+			}
+			this.referenced[first + way] = false;
+		}
+	}
+
+}